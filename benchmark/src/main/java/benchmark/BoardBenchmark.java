@@ -0,0 +1,45 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing and comparing boards, as done whenever games are kept in hash
+ * maps or compared after a reload
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    private ChessBoard copy;
+
+    @Setup
+    public void setUp(Positions positions) {
+        copy = ChessGame.fromFen(positions.game.toFen()).getBoard();
+    }
+
+    @Benchmark
+    public int boardHashCode(Positions positions) {
+        return positions.game.getBoard().hashCode();
+    }
+
+    @Benchmark
+    public boolean boardEquals(Positions positions) {
+        return positions.game.getBoard().equals(copy);
+    }
+}
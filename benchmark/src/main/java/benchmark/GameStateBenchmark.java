@@ -0,0 +1,60 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playing moves and the check, checkmate and stalemate queries asked after
+ * every move
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+    private int nextMove;
+
+    /**
+     * Plays each legal move in turn through the public makeMove and takes it
+     * back with unmakeMove, so the position never drifts. The take-back is
+     * included in the score.
+     */
+    @Benchmark
+    public ChessGame makeMove(Positions positions) throws InvalidMoveException {
+        ChessGame game = positions.game;
+        ChessMove move = positions.legalMoves[nextMove];
+        nextMove = nextMove + 1 == positions.legalMoves.length ? 0 : nextMove + 1;
+        game.makeMove(move);
+        game.unmakeMove();
+        return game;
+    }
+
+    @Benchmark
+    public boolean isInCheck(Positions positions) {
+        return positions.game.isInCheck(positions.game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate(Positions positions) {
+        return positions.game.isInCheckmate(positions.game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate(Positions positions) {
+        return positions.game.isInStalemate(positions.game.getTeamTurn());
+    }
+}
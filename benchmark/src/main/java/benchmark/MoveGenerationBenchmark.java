@@ -0,0 +1,41 @@
+package benchmark;
+
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating the moves of every piece of the team to move, with and without
+ * removing moves that leave the king in check
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoveGenerationBenchmark {
+
+    @Benchmark
+    public void pieceMoves(Positions positions, Blackhole blackhole) {
+        for (ChessPosition position : positions.ownPieces) {
+            ChessPiece piece = positions.game.getBoard().getPiece(position);
+            blackhole.consume(piece.pieceMoves(positions.game.getBoard(), position));
+        }
+    }
+
+    @Benchmark
+    public void validMoves(Positions positions, Blackhole blackhole) {
+        for (ChessPosition position : positions.ownPieces) {
+            blackhole.consume(positions.game.validMoves(position));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.MoveList;
+import chess.NnueEvaluator;
+import chess.NnueNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network evaluation with the plain Java and the SIMD arithmetic. The forks
+ * add the incubating vector module; without it both kernels are plain Java.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class NnueBenchmark {
+    @Param({"scalar", "simd"})
+    public String kernel;
+
+    @Param({"256"})
+    public int hiddenSize;
+
+    private NnueEvaluator evaluator;
+    private ChessGame game;
+    private int[] packedMoves;
+    private int nextMove;
+
+    @Setup
+    public void setUp(Positions positions) {
+        NnueNetwork network = NnueNetwork.random(hiddenSize, 1);
+        evaluator = kernel.equals("scalar") ? NnueEvaluator.scalar(network) : new NnueEvaluator(network);
+        game = positions.game;
+        evaluator.attach(game);
+
+        // The same moves as the other benchmarks, in the packed form makeMove(int) takes
+        MoveList legal = new MoveList();
+        game.legalMoves(legal);
+        packedMoves = new int[positions.legalMoves.length];
+        for (int i = 0; i < packedMoves.length; i++) {
+            packedMoves[i] = legal.find(positions.legalMoves[i]);
+        }
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return evaluator.evaluate(game);
+    }
+
+    /** One make, evaluate and unmake, as at every leaf of a search */
+    @Benchmark
+    public int makeEvaluateUnmake() {
+        int move = packedMoves[nextMove];
+        nextMove = nextMove + 1 == packedMoves.length ? 0 : nextMove + 1;
+        game.makeMove(move);
+        int score = evaluator.evaluate(game);
+        game.unmakeMove();
+        return score;
+    }
+
+    /** Rebuilds the accumulators from every piece, the cost incremental updates avoid */
+    @Benchmark
+    public int evaluateFromScratch() {
+        return evaluator.evaluateFromScratch(game);
+    }
+}
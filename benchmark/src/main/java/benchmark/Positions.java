@@ -0,0 +1,54 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The game every benchmark runs on, one per phase of the game
+ */
+@State(Scope.Thread)
+public class Positions {
+    @Param({"opening", "middlegame", "endgame"})
+    public String phase;
+
+    public ChessGame game;
+
+    /** Squares holding a piece of the team to move */
+    public ChessPosition[] ownPieces;
+
+    /** Every legal move of the team to move */
+    public ChessMove[] legalMoves;
+
+    @Setup
+    public void setUp() {
+        game = ChessGame.fromFen(switch (phase) {
+            case "opening" -> "rnbqkb1r/pppp1ppp/5n2/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 2 3";
+            case "middlegame" -> "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+            case "endgame" -> "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+            default -> throw new IllegalArgumentException("Unknown phase " + phase);
+        });
+        List<ChessPosition> pieces = new ArrayList<>();
+        List<ChessMove> moves = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    pieces.add(position);
+                    moves.addAll(game.validMoves(position));
+                }
+            }
+        }
+        ownPieces = pieces.toArray(new ChessPosition[0]);
+        legalMoves = moves.toArray(new ChessMove[0]);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessGameCodec;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson serialization of a game, the form games are stored in and sent to
+ * clients in, against the binary {@link ChessGameCodec}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    private final Gson gson = new Gson();
+    private String json;
+    private final ByteBuffer encoded = ByteBuffer.allocate(ChessGameCodec.ENCODED_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocate(ChessGameCodec.ENCODED_SIZE);
+
+    @Setup
+    public void setUp(Positions positions) {
+        json = gson.toJson(positions.game);
+        encoded.clear();
+        ChessGameCodec.encode(positions.game, encoded);
+        encoded.flip();
+    }
+
+    @Benchmark
+    public String toJson(Positions positions) {
+        return gson.toJson(positions.game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public ByteBuffer encode(Positions positions) {
+        out.clear();
+        ChessGameCodec.encode(positions.game, out);
+        return out;
+    }
+
+    @Benchmark
+    public ChessGame decode() {
+        encoded.rewind();
+        return ChessGameCodec.decode(encoded);
+    }
+}
@@ -0,0 +1,4 @@
+package benchmark.jmh_generated;
+public class BoardBenchmark_jmhType extends BoardBenchmark_jmhType_B3 {
+}
+
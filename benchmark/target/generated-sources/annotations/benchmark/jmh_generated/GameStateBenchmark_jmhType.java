@@ -0,0 +1,4 @@
+package benchmark.jmh_generated;
+public class GameStateBenchmark_jmhType extends GameStateBenchmark_jmhType_B3 {
+}
+
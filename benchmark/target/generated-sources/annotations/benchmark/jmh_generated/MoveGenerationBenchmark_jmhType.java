@@ -0,0 +1,4 @@
+package benchmark.jmh_generated;
+public class MoveGenerationBenchmark_jmhType extends MoveGenerationBenchmark_jmhType_B3 {
+}
+
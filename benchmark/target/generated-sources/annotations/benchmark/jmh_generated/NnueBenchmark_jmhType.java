@@ -0,0 +1,4 @@
+package benchmark.jmh_generated;
+public class NnueBenchmark_jmhType extends NnueBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package benchmark.jmh_generated;
+public class Positions_jmhType extends Positions_jmhType_B3 {
+}
+
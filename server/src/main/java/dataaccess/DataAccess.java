@@ -14,7 +14,16 @@ public interface DataAccess {
     AuthData getAuth(String authToken) throws DataAccessException;
     void deleteAuth(String authToken) throws DataAccessException;
     int createGame(String gameName) throws DataAccessException;
+    /**
+     * Stores complete games in one batch, for bulk imports
+     */
+    void createGames(List<GameData> games) throws DataAccessException;
     GameData getGame(int gameID) throws DataAccessException;
     List<GameData> listGames() throws DataAccessException;
+    /**
+     * Passes every game to the visitor in turn without holding them all in
+     * memory, for exports too large for {@link #listGames()}
+     */
+    void forEachGame(GameVisitor visitor) throws DataAccessException;
     void updateGame(GameData game) throws DataAccessException;
 }
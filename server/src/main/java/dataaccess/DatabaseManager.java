@@ -72,7 +72,8 @@ public class DatabaseManager {
 
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
-        connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        // Lets Connector/J send a batch of inserts as one multi-row statement
+        connectionUrl = String.format("jdbc:mysql://%s:%d/?rewriteBatchedStatements=true", host, port);
         // === DEBUG PRINTS - ADD THESE LINES ===
         System.out.println("=== DatabaseManager Debug ===");
         System.out.println("Host: " + host);
@@ -0,0 +1,13 @@
+package dataaccess;
+
+import model.GameData;
+
+import java.io.IOException;
+
+/**
+ * Receives games one at a time from {@link DataAccess#forEachGame(GameVisitor)}
+ */
+@FunctionalInterface
+public interface GameVisitor {
+    void visit(GameData game) throws IOException;
+}
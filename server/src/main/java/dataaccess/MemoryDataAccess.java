@@ -43,6 +43,13 @@ public class MemoryDataAccess implements DataAccess {
         return gameID;
     }
 
+    public void createGames(List<GameData> batch){
+        for(GameData game : batch){
+            int gameID = nextGameId++;
+            games.put(gameID, new GameData(gameID, game.whiteUsername(), game.blackUsername(), game.gameName(), game.game()));
+        }
+    }
+
     public GameData getGame(int gameID){
         return games.get(gameID);
     }
@@ -51,6 +58,17 @@ public class MemoryDataAccess implements DataAccess {
         return new ArrayList<>(games.values());
     }
 
+    public void forEachGame(GameVisitor visitor) throws DataAccessException{
+        try{
+            for(GameData game : games.values()){
+                visitor.visit(game);
+            }
+        }
+        catch (Exception exception){
+            throw new DataAccessException("Error exporting games", exception);
+        }
+    }
+
     public void updateGame(GameData game){
         games.put(game.gameID(), game);
     }
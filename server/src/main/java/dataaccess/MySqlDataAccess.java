@@ -111,6 +111,26 @@ public class MySqlDataAccess implements DataAccess {
         }
     }
 
+    public void createGames(List<GameData> games) throws DataAccessException {
+        String sql = "INSERT INTO game (whiteUsername, blackUsername, gameName, gameState) VALUES (?, ?, ?, ?)";
+        try(var conn = DatabaseManager.getConnection();
+            var state = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for(GameData game : games){
+                state.setString(1, game.whiteUsername());
+                state.setString(2, game.blackUsername());
+                state.setString(3, game.gameName());
+                state.setString(4, gson.toJson(game.game()));
+                state.addBatch();
+            }
+            state.executeBatch();
+            conn.commit();
+        }
+        catch (Exception exception) {
+            throw new DataAccessException("Error creating games", exception);
+        }
+    }
+
     public GameData getGame(int gameID) throws DataAccessException {
         String sql = "SELECT * FROM game WHERE gameID=?";
         try(var conn = DatabaseManager.getConnection();
@@ -155,6 +175,29 @@ public class MySqlDataAccess implements DataAccess {
         }
     }
 
+    public void forEachGame(GameVisitor visitor) throws DataAccessException {
+        String sql = "SELECT gameID, whiteUsername, blackUsername, gameName, gameState FROM game";
+        try(var conn = DatabaseManager.getConnection();
+            var state = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Makes Connector/J stream rows one at a time instead of reading the whole result
+            state.setFetchSize(Integer.MIN_VALUE);
+            try(var resultSet = state.executeQuery()) {
+                while(resultSet.next()){
+                    visitor.visit(new GameData(
+                        resultSet.getInt("gameID"),
+                        resultSet.getString("whiteUsername"),
+                        resultSet.getString("blackUsername"),
+                        resultSet.getString("gameName"),
+                        gson.fromJson(resultSet.getString("gameState"), ChessGame.class)
+                    ));
+                }
+            }
+        }
+        catch (Exception exception){
+            throw new DataAccessException("Error exporting games", exception);
+        }
+    }
+
     public void updateGame(GameData game) throws DataAccessException {
         String sql = "UPDATE game SET whiteUsername=?, blackUsername=?, gameState=? WHERE gameID=?";
         try (var conn = DatabaseManager.getConnection();
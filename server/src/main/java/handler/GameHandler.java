@@ -7,6 +7,12 @@ import model.JoinGameRequest;
 import model.ListGamesResponse;
 import service.*;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class GameHandler {
     private final GameService service;
     private final Gson gson = new Gson();
@@ -50,6 +56,33 @@ public class GameHandler {
         }
     }
 
+    public void exportGames(Context context){
+        AtomicBoolean started = new AtomicBoolean();
+        try{
+            String authToken = context.header("authorization");
+            service.exportGames(authToken, () -> {
+                started.set(true);
+                context.status(200);
+                context.contentType("application/x-chess-pgn");
+                context.header("Content-Disposition", "attachment; filename=\"games.pgn\"");
+                return new BufferedWriter(new OutputStreamWriter(context.outputStream(), StandardCharsets.UTF_8));
+            });
+        } catch (Exception exception){
+            if(!started.get()){
+                exceptionHandler(context, exception);
+                return;
+            }
+            // The status and some games may already be sent, so an error
+            // response is no longer possible; end the download where it stopped
+            System.err.println("PGN export failed part way: " + exception.getMessage());
+            try{
+                context.outputStream().close();
+            } catch (IOException closeException){
+                System.err.println("Could not close PGN export: " + closeException.getMessage());
+            }
+        }
+    }
+
     private void exceptionHandler(Context context, Exception exception){
         String message = exception.getMessage();
         int errorStatus = switch (message){
@@ -0,0 +1,39 @@
+package server;
+
+import dataaccess.DatabaseInitializer;
+import dataaccess.MySqlDataAccess;
+import service.PgnImporter;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Seeds the game table from a PGN file:
+ * {@code ImportMain <file.pgn> [checker threads] [batch size]}
+ */
+public class ImportMain {
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: ImportMain <file.pgn> [checker threads] [batch size]");
+            System.exit(2);
+        }
+        int checkers = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        try (Reader in = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            DatabaseInitializer.initialize();
+            var importer = new PgnImporter(new MySqlDataAccess(), checkers, 4 * batchSize, batchSize);
+            var report = importer.importGames(in);
+            for (var stage : report.stages()) {
+                System.out.println(stage);
+            }
+            System.out.printf("Imported %,d games, rejected %,d, in %.1f s%n",
+                    report.imported(), report.rejected(), report.elapsedNanos() / 1e9);
+        } catch (Exception exception) {
+            System.err.println("Import failed: " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -11,10 +11,12 @@ import dataaccess.MySqlDataAccess;
 import dataaccess.DatabaseInitializer;
 import dataaccess.DataAccessException;
 import server.websocket.WebSocketHandler;
+import chess.LegalMoveCache;
 
 public class Server {
 
     private final Javalin javalin;;
+    private final LegalMoveCache moveCache;
 
     public Server() {
         javalin = Javalin.create(config -> config.staticFiles.add("web"));
@@ -39,8 +41,11 @@ public class Server {
         javalin.get("/game", gameHandler::listGames);
         javalin.post("/game", gameHandler::createGame);
         javalin.put("/game", gameHandler::joinGame);
+        javalin.get("/game/pgn", gameHandler::exportGames);
 
-        WebSocketHandler handler = new WebSocketHandler(data);
+        // 2^16 positions, at most about 13 MB, covers the common openings of every game
+        moveCache = new LegalMoveCache(1 << 16);
+        WebSocketHandler handler = new WebSocketHandler(data, moveCache);
         javalin.ws("/ws", ws -> {
             ws.onConnect(ctx -> {
                 ctx.enableAutomaticPings();
@@ -64,5 +69,6 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+        System.out.println("Legal move cache: " + moveCache.stats());
     }
 }
@@ -8,6 +8,8 @@ import model.AuthData;
 import websocket.commands.*;
 import websocket.messages.*;
 import chess.ChessGame;
+import chess.GameStatus;
+import chess.LegalMoveCache;
 import model.GameData;
 import com.google.gson.Gson;
 
@@ -16,10 +18,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public class WebSocketHandler {
     private final ConcurrentHashMap<Integer, ConcurrentHashMap<WsContext, String>> gameSessions = new ConcurrentHashMap<>();
     private final MySqlDataAccess data;
+    // Legal moves of positions seen in any game, shared by every connection
+    private final LegalMoveCache moveCache;
     private final Gson gson = new Gson();
 
-    public WebSocketHandler(MySqlDataAccess data) {
+    public WebSocketHandler(MySqlDataAccess data, LegalMoveCache moveCache) {
         this.data = data;
+        this.moveCache = moveCache;
     }
 
     public void onConnect(WsConnectContext ctx) {
@@ -123,9 +128,14 @@ public class WebSocketHandler {
                 return;
             }
             ChessMove move = cmd.getMove();
-            game.makeMove(cmd.getMove());
-            boolean isCheckmate = game.isInCheckmate(game.getTeamTurn());
-            boolean isStalemate = game.isInStalemate(game.getTeamTurn());
+            moveCache.makeMove(game, cmd.getMove());
+            GameStatus status = moveCache.status(game);
+            boolean isCheckmate = status.isCheckmate();
+            boolean isStalemate = status.isStalemate();
+            boolean isRepetition = game.isThreefoldRepetition();
+            if (isCheckmate || isStalemate || isRepetition) {
+                game.setGameOver(true);
+            }
             GameData updatedGame = new GameData(
                     gameData.gameID(),
                     gameData.whiteUsername(),
@@ -138,13 +148,14 @@ public class WebSocketHandler {
             broadcastNotificationExcept(gameID, ctx, username + " made a move: " +
                     moveParser(move.getStartPosition()) + " " + moveParser(move.getEndPosition()));
             if (isCheckmate) {
-                game.setGameOver(true);
                 broadcastNotification(gameID, "Checkmate! " + username + " wins.");
             }
             else if (isStalemate) {
-                game.setGameOver(true);
                 broadcastNotification(gameID, "Stalemate! Draw.");
             }
+            else if (isRepetition) {
+                broadcastNotification(gameID, "Threefold repetition! Draw.");
+            }
         }
         catch (Exception exception) {
             String errorMsg = exception.getMessage() != null ? exception.getMessage() : "Invalid move";
@@ -1,8 +1,13 @@
 package service;
 import chess.ChessGame;
+import chess.PgnWriter;
 import dataaccess.DataAccess;
 import model.*;
+import java.io.Writer;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class GameService {
     private final DataAccess data;
@@ -59,4 +64,27 @@ public class GameService {
         }
         data.updateGame(game);
     }
+
+    /**
+     * Writes every finished game as PGN, streaming them from storage one at
+     * a time so any number of games can be exported. The output is only
+     * opened once the request is authorized.
+     */
+    public void exportGames(String authToken, Supplier<Writer> output) throws Exception {
+        if(data.getAuth(authToken) == null || authToken == null){
+            throw new Exception("unauthorized");
+        }
+        PgnWriter pgn = new PgnWriter(output.get());
+        Map<String, String> tags = new LinkedHashMap<>();
+        data.forEachGame(game -> {
+            if(game.game() != null && game.game().isGameOver()){
+                tags.put("Event", game.gameName());
+                tags.put("White", game.whiteUsername());
+                tags.put("Black", game.blackUsername());
+                tags.put("GameId", Integer.toString(game.gameID()));
+                pgn.write(tags, game.game());
+            }
+        });
+        pgn.flush();
+    }
 }
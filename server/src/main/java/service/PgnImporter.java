@@ -0,0 +1,270 @@
+package service;
+
+import chess.ChessGame;
+import chess.PgnGame;
+import chess.PgnReader;
+import dataaccess.DataAccess;
+import model.GameData;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports games from a PGN file into storage as a three-stage pipeline: one
+ * thread parses games, several threads replay their moves to check them, and
+ * one thread stores them in batches. Bounded queues between the stages keep
+ * memory flat however large the file is, and let a slow stage hold back the
+ * ones before it instead of piling up games.
+ * <p>
+ * Each stage counts the time it spends working and the time it spends
+ * waiting on a queue, so the report shows which stage limits the import.
+ */
+public class PgnImporter {
+    private static final PgnGame END_OF_GAMES = new PgnGame(Map.of(), List.of(), "*");
+    private static final GameData END_OF_CHECKED = new GameData(0, null, null, "", null);
+    private static final int NAME_LENGTH = 100;
+    private static final int USERNAME_LENGTH = 50;
+
+    private final DataAccess data;
+    private final int checkers;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    /**
+     * @param data          where to store the games
+     * @param checkers      threads replaying moves
+     * @param queueCapacity games each queue between stages may hold
+     * @param batchSize     games stored per batch
+     */
+    public PgnImporter(DataAccess data, int checkers, int queueCapacity, int batchSize){
+        if(checkers < 1 || queueCapacity < 1 || batchSize < 1){
+            throw new IllegalArgumentException("Threads, queue capacity and batch size must be positive");
+        }
+        this.data = data;
+        this.checkers = checkers;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * How one stage of an import spent its time
+     *
+     * @param stage     name of the stage
+     * @param threads   threads running the stage
+     * @param items     games the stage handled
+     * @param busyNanos time spent working, summed over the stage's threads
+     * @param waitNanos time spent waiting on the queues, summed over the stage's threads
+     */
+    public record StageReport(String stage, int threads, long items, long busyNanos, long waitNanos) {
+
+        /** @return games per second the stage could handle if it never had to wait */
+        public double capacityPerSecond(){
+            return busyNanos == 0 ? 0 : items * threads * 1e9 / busyNanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%-7s %2d thread(s) %,12d games %,12.0f games/s when busy, %,8.1f s waiting",
+                    stage, threads, items, capacityPerSecond(), waitNanos / 1e9 / threads);
+        }
+    }
+
+    /**
+     * @param imported     games stored
+     * @param rejected     games left out because they could not be replayed
+     * @param elapsedNanos wall clock time of the whole import
+     * @param stages       parse, check and store, in pipeline order
+     */
+    public record ImportReport(long imported, long rejected, long elapsedNanos, List<StageReport> stages) {}
+
+    /**
+     * Reads, checks and stores every game in the input. Games with a move
+     * this chess engine does not allow, such as castling, are rejected.
+     *
+     * @param in the PGN text; not closed
+     * @return counts and per-stage timings
+     * @throws Exception if reading or storing fails, after stopping every stage
+     */
+    public ImportReport importGames(Reader in) throws Exception {
+        long start = System.nanoTime();
+        BlockingQueue<PgnGame> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<GameData> checked = new ArrayBlockingQueue<>(queueCapacity);
+        Stage parse = new Stage("parse", 1);
+        Stage check = new Stage("check", checkers);
+        Stage store = new Stage("store", 1);
+        AtomicLong rejected = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(checkers + 2);
+        try{
+            var tasks = new ExecutorCompletionService<Void>(pool);
+            tasks.submit(() -> parseGames(new PgnReader(in), parsed, parse));
+            for(int i = 0; i < checkers; i++){
+                tasks.submit(() -> checkGames(parsed, checked, check, rejected));
+            }
+            tasks.submit(() -> storeGames(checked, store));
+            for(int i = 0; i < checkers + 2; i++){
+                try{
+                    tasks.take().get();
+                } catch (ExecutionException exception){
+                    if(exception.getCause() instanceof Exception cause){
+                        throw cause;
+                    }
+                    throw exception;
+                }
+            }
+        }
+        finally {
+            // Interrupts stages still blocked on a queue if another one failed
+            pool.shutdownNow();
+        }
+        return new ImportReport(store.items.get(), rejected.get(), System.nanoTime() - start,
+                List.of(parse.report(), check.report(), store.report()));
+    }
+
+    private Void parseGames(PgnReader reader, BlockingQueue<PgnGame> parsed, Stage stage) throws Exception {
+        long items = 0;
+        long busy = 0;
+        long wait = 0;
+        try{
+            while(true){
+                long before = System.nanoTime();
+                PgnGame game = reader.next();
+                long read = System.nanoTime();
+                busy += read - before;
+                if(game == null){
+                    break;
+                }
+                items++;
+                parsed.put(game);
+                wait += System.nanoTime() - read;
+            }
+            for(int i = 0; i < checkers; i++){
+                parsed.put(END_OF_GAMES);
+            }
+        }
+        finally {
+            stage.add(items, busy, wait);
+        }
+        return null;
+    }
+
+    private Void checkGames(BlockingQueue<PgnGame> parsed, BlockingQueue<GameData> checked, Stage stage,
+                            AtomicLong rejected) throws Exception {
+        long items = 0;
+        long busy = 0;
+        long wait = 0;
+        try{
+            while(true){
+                long before = System.nanoTime();
+                PgnGame game = parsed.take();
+                long taken = System.nanoTime();
+                wait += taken - before;
+                if(game == END_OF_GAMES){
+                    checked.put(END_OF_CHECKED);
+                    break;
+                }
+                GameData gameData = toGameData(game);
+                long done = System.nanoTime();
+                busy += done - taken;
+                items++;
+                if(gameData == null){
+                    rejected.incrementAndGet();
+                    continue;
+                }
+                checked.put(gameData);
+                wait += System.nanoTime() - done;
+            }
+        }
+        finally {
+            stage.add(items, busy, wait);
+        }
+        return null;
+    }
+
+    private Void storeGames(BlockingQueue<GameData> checked, Stage stage) throws Exception {
+        long items = 0;
+        long busy = 0;
+        long wait = 0;
+        List<GameData> batch = new ArrayList<>(batchSize);
+        int finishedCheckers = 0;
+        try{
+            while(finishedCheckers < checkers){
+                long before = System.nanoTime();
+                GameData game = checked.take();
+                wait += System.nanoTime() - before;
+                if(game == END_OF_CHECKED){
+                    finishedCheckers++;
+                } else {
+                    batch.add(game);
+                }
+                if(batch.size() == batchSize || (finishedCheckers == checkers && !batch.isEmpty())){
+                    before = System.nanoTime();
+                    data.createGames(batch);
+                    busy += System.nanoTime() - before;
+                    items += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        finally {
+            stage.add(items, busy, wait);
+        }
+        return null;
+    }
+
+    // Replays the game's moves, giving null if the game cannot be replayed.
+    // Any failure rejects just this game rather than stopping the import.
+    private static GameData toGameData(PgnGame game){
+        ChessGame chessGame;
+        try{
+            chessGame = game.replay();
+        } catch (RuntimeException exception){
+            return null;
+        }
+        String name = tag(game, "Event", NAME_LENGTH);
+        return new GameData(0, tag(game, "White", USERNAME_LENGTH), tag(game, "Black", USERNAME_LENGTH),
+                name == null ? "Imported game" : name, chessGame);
+    }
+
+    // A tag's value cut to fit its column, or null if it is missing or unknown
+    private static String tag(PgnGame game, String name, int maxLength){
+        String value = game.tags().get(name);
+        if(value == null || value.isBlank() || value.equals("?")){
+            return null;
+        }
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static class Stage {
+        private final String name;
+        private final int threads;
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        Stage(String name, int threads){
+            this.name = name;
+            this.threads = threads;
+        }
+
+        void add(long items, long busy, long wait){
+            this.items.addAndGet(items);
+            busyNanos.addAndGet(busy);
+            waitNanos.addAndGet(wait);
+        }
+
+        StageReport report(){
+            return new StageReport(name, threads, items.get(), busyNanos.get(), waitNanos.get());
+        }
+    }
+}
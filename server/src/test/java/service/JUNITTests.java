@@ -8,6 +8,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.List;
 
 public class JUNITTests {
@@ -106,4 +112,53 @@ public class JUNITTests {
         Exception exception = assertThrows(Exception.class, () -> gameService.joinGame("bad-token", request));
         assertEquals("unauthorized", exception.getMessage());
     }
+
+    @Test
+    void exportGamesWritesFinishedGames() throws Exception {
+        ChessGame foolsMate = new ChessGame();
+        foolsMate.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        foolsMate.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        foolsMate.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        foolsMate.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+        foolsMate.setGameOver(true);
+        int finished = data.createGame("Finished");
+        data.updateGame(new GameData(finished, "joe", "bob", "Finished", foolsMate));
+        data.createGame("Still Playing");
+        StringWriter out = new StringWriter();
+        gameService.exportGames(authToken, () -> out);
+        String pgn = out.toString();
+        assertTrue(pgn.startsWith("[Event \"Finished\"]"), pgn);
+        assertTrue(pgn.contains("[White \"joe\"]\n[Black \"bob\"]\n[Result \"0-1\"]\n"), pgn);
+        assertTrue(pgn.endsWith("\n1. f3 e5 2. g4 Qh4# 0-1\n\n"), pgn);
+        assertFalse(pgn.contains("Still Playing"));
+    }
+
+    @Test
+    void exportGamesUnauthorized() {
+        StringWriter out = new StringWriter();
+        Exception exception = assertThrows(Exception.class, () -> gameService.exportGames("bad-token", () -> out));
+        assertEquals("unauthorized", exception.getMessage());
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void importGamesStoresLegalGames() throws Exception {
+        StringBuilder pgn = new StringBuilder();
+        for(int i = 0; i < 50; i++){
+            pgn.append("[Event \"Game ").append(i).append("\"]\n[White \"Alice\"]\n[Black \"?\"]\n\n");
+            pgn.append(i % 10 == 0 ? "1. e4 e5 2. O-O *\n\n" : "1. f3 e5 2. g4 Qh4# 0-1\n\n");
+        }
+        PgnImporter importer = new PgnImporter(data, 3, 4, 8);
+        PgnImporter.ImportReport report = importer.importGames(new StringReader(pgn.toString()));
+        assertEquals(45, report.imported());
+        assertEquals(5, report.rejected());
+        assertEquals(List.of(50L, 50L, 45L), report.stages().stream().map(PgnImporter.StageReport::items).toList());
+        List<GameData> games = data.listGames();
+        assertEquals(45, games.size());
+        GameData game = games.get(0);
+        assertEquals("Alice", game.whiteUsername());
+        assertNull(game.blackUsername());
+        assertTrue(game.game().isGameOver());
+        assertTrue(game.game().isInCheckmate(ChessGame.TeamColor.WHITE));
+    }
 }
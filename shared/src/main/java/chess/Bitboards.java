@@ -0,0 +1,272 @@
+package chess;
+
+/**
+ * Square indexing and attack helpers for the bitboard board core.
+ * <p>
+ * Squares are numbered 0-63 starting at row 1, column 1 (a1) and moving
+ * across each row, so bit {@code (row - 1) * 8 + (column - 1)} of a bitboard
+ * represents the square at that row and column.
+ */
+final class Bitboards {
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_H = FILE_A << 7;
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_8 = RANK_1 << 56;
+    static final long NOT_FILE_A = ~FILE_A;
+    static final long NOT_FILE_H = ~FILE_H;
+    static final long NOT_FILE_AB = ~(FILE_A | FILE_A << 1);
+    static final long NOT_FILE_GH = ~(FILE_H | FILE_H >>> 1);
+
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    // Magic bitboard tables for sliding pieces. For each square, the relevant
+    // blockers are masked, multiplied by the magic and shifted down to index
+    // that square's slice of the shared attack table. The magics were found
+    // offline by random search and are checked while the tables are built.
+    private static final long[] ROOK_MAGICS = {
+            0x0080002080104001L, 0x004000200010004CL, 0x1100102001004208L, 0x0080100008008004L,
+            0x320002009004A008L, 0x23800400802A0001L, 0x0C00082084010230L, 0x4100020341219300L,
+            0x0454800280204010L, 0x0004802000854004L, 0x0021002004110441L, 0x0000800800801000L,
+            0x4004800802808400L, 0x0022001002004884L, 0x1002000408010200L, 0x400100085A008100L,
+            0x2040008000482880L, 0x1040064020005000L, 0x8020420010208200L, 0x0010010020110408L,
+            0x0600050008001100L, 0x0002008002040080L, 0x0000040050214208L, 0x4040020000810044L,
+            0x1080004040002000L, 0x0040200040005008L, 0x0090420200102083L, 0x4048100100090421L,
+            0x0090100500080100L, 0x040850080104C020L, 0x0081880400021001L, 0x4806090200084084L,
+            0x0080804004800020L, 0x0008812005804000L, 0x6080802000801000L, 0x1810800800801000L,
+            0x1546800800800403L, 0x0000800400800200L, 0x0900020804000150L, 0x8003004082000401L,
+            0x0050401080208000L, 0x0420003000C0C008L, 0x0010040028002001L, 0x0209001000090020L,
+            0x7000040008008080L, 0x0102000400808002L, 0x120B040200010100L, 0x0E00008100420004L,
+            0x0480204082010200L, 0x0002090050208600L, 0x1020410020001900L, 0x0405009000208900L,
+            0x0010080004008080L, 0x2042008890C42200L, 0x2002800200010080L, 0x0005114402890200L,
+            0x0419004010220086L, 0x8100420100208012L, 0x040200801020440AL, 0x103F00081000602DL,
+            0x0101001028000423L, 0x8001000814000203L, 0x0240108810410214L, 0x0000884083140226L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x104802182A040010L, 0x1020042882024410L, 0x0210009481109600L, 0x0A04440082002004L,
+            0x0042021000004000L, 0x9112020220041050L, 0x0D00820111C00000L, 0x0000808801302A08L,
+            0xA011061024280080L, 0x0000911000808081L, 0x0000644102020200L, 0x0000040418840201L,
+            0x0002240422400511L, 0x0000021130080942L, 0x9800009C11201000L, 0x200000422A012002L,
+            0x0148006060010243L, 0x4102002028020090L, 0x0044000808501200L, 0x0000800802810030L,
+            0x0001011820080014L, 0x18B10A4200900402L, 0x4004028084040225L, 0x0000804032011000L,
+            0x0008200008A00100L, 0x0401200029820400L, 0x0084120101080102L, 0x00208020C8020020L,
+            0x0101010080104000L, 0x0290010000208800L, 0x819A044024240200L, 0x0420888011041080L,
+            0x00080208501020A8L, 0x204090C410900400L, 0x0000580800140440L, 0x0006004040140100L,
+            0x0001100401208020L, 0x0220008900088040L, 0x2202484900684401L, 0xC00E02060000E0A0L,
+            0x000801300A001004L, 0x0029009004001010L, 0x400100C230002204L, 0x0040020102442400L,
+            0x6002880100400400L, 0x0032022041000A00L, 0x80901000C9000080L, 0x5001021293048208L,
+            0x0282080405048000L, 0x002A208410280000L, 0x0280088048088000L, 0x0180000442020800L,
+            0x0200004008220004L, 0x0061040408021810L, 0x202020040140403CL, 0x0002100101050061L,
+            0x0200104208044011L, 0x0300004042101100L, 0x0008020100411008L, 0x1410403040420201L,
+            0x00900000110A0A11L, 0x800200A015014A00L, 0x4044102008808080L, 0x0040300206204090L
+    };
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[] ROOK_TABLE = new long[102400];
+    private static final long[] BISHOP_TABLE = new long[5248];
+
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            POSITIONS[sq] = new ChessPosition(sq / 8 + 1, sq % 8 + 1);
+            KNIGHT_ATTACKS[sq] = knightSpread(1L << sq);
+            KING_ATTACKS[sq] = kingSpread(1L << sq);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][sq] = pawnSpread(1L << sq, ChessGame.TeamColor.WHITE);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][sq] = pawnSpread(1L << sq, ChessGame.TeamColor.BLACK);
+            for (int[] direction : DIRECTIONS) {
+                long line = (1L << sq) | slide(sq, 0L, direction[0], direction[1])
+                        | slide(sq, 0L, -direction[0], -direction[1]);
+                long between = 0L;
+                int r = row(sq) + direction[0];
+                int c = column(sq) + direction[1];
+                while (onBoard(r, c)) {
+                    int target = square(r, c);
+                    BETWEEN[sq][target] = between;
+                    LINE[sq][target] = line;
+                    between |= 1L << target;
+                    r += direction[0];
+                    c += direction[1];
+                }
+            }
+        }
+        int rookOffset = 0;
+        int bishopOffset = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            ROOK_MASKS[sq] = relevantBlockers(sq, true);
+            BISHOP_MASKS[sq] = relevantBlockers(sq, false);
+            ROOK_SHIFTS[sq] = 64 - Long.bitCount(ROOK_MASKS[sq]);
+            BISHOP_SHIFTS[sq] = 64 - Long.bitCount(BISHOP_MASKS[sq]);
+            ROOK_OFFSETS[sq] = rookOffset;
+            BISHOP_OFFSETS[sq] = bishopOffset;
+            rookOffset += fillMagicTable(sq, true, ROOK_MASKS[sq], ROOK_MAGICS[sq], ROOK_SHIFTS[sq],
+                    ROOK_TABLE, rookOffset);
+            bishopOffset += fillMagicTable(sq, false, BISHOP_MASKS[sq], BISHOP_MAGICS[sq], BISHOP_SHIFTS[sq],
+                    BISHOP_TABLE, bishopOffset);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /** @return the square index for a 1-based row and column */
+    static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /** @return the square index of the given position */
+    static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /** @return a shared, immutable position for the given square index */
+    static ChessPosition position(int sq) {
+        return POSITIONS[sq];
+    }
+
+    static int row(int sq) {
+        return (sq >>> 3) + 1;
+    }
+
+    static int column(int sq) {
+        return (sq & 7) + 1;
+    }
+
+    static boolean onBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared row, column
+     * or diagonal, or an empty bitboard if they are not aligned
+     */
+    static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square on the row, column or diagonal through both squares,
+     * or an empty bitboard if they are not aligned
+     */
+    static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    static long knightAttacks(int sq) {
+        return KNIGHT_ATTACKS[sq];
+    }
+
+    static long kingAttacks(int sq) {
+        return KING_ATTACKS[sq];
+    }
+
+    /** @return the squares a pawn of the given color on this square attacks */
+    static long pawnAttacks(int sq, ChessGame.TeamColor color) {
+        return PAWN_ATTACKS[color.ordinal()][sq];
+    }
+
+    static long rookAttacks(int sq, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[sq]
+                + (int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])];
+    }
+
+    static long bishopAttacks(int sq, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[sq]
+                + (int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])];
+    }
+
+    static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    /**
+     * @return the squares whose occupancy can change a slider's attacks from
+     * this square, which excludes the last square of each ray
+     */
+    private static long relevantBlockers(int sq, boolean rook) {
+        long edges = ((RANK_1 | RANK_8) & ~(RANK_1 << ((sq >>> 3) * 8)))
+                | ((FILE_A | FILE_H) & ~(FILE_A << (sq & 7)));
+        long attacks = rook ? slideRook(sq, 0L) : slideBishop(sq, 0L);
+        return attacks & ~edges;
+    }
+
+    /**
+     * Fills one square's slice of a magic attack table by walking every
+     * subset of its relevant blockers.
+     *
+     * @return the number of table entries the square uses
+     */
+    private static int fillMagicTable(int sq, boolean rook, long mask, long magic, int shift, long[] table,
+                                      int offset) {
+        long subset = 0L;
+        do {
+            long attacks = rook ? slideRook(sq, subset) : slideBishop(sq, subset);
+            int index = offset + (int) ((subset * magic) >>> shift);
+            if (table[index] != 0L && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic for square " + sq);
+            }
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0L);
+        return 1 << (64 - shift);
+    }
+
+    private static long knightSpread(long knights) {
+        long l1 = (knights >>> 1) & NOT_FILE_H;
+        long l2 = (knights >>> 2) & NOT_FILE_GH;
+        long r1 = (knights << 1) & NOT_FILE_A;
+        long r2 = (knights << 2) & NOT_FILE_AB;
+        long h1 = l1 | r1;
+        long h2 = l2 | r2;
+        return (h1 << 16) | (h1 >>> 16) | (h2 << 8) | (h2 >>> 8);
+    }
+
+    private static long kingSpread(long kings) {
+        long sides = ((kings << 1) & NOT_FILE_A) | ((kings >>> 1) & NOT_FILE_H);
+        long row = kings | sides;
+        return sides | (row << 8) | (row >>> 8);
+    }
+
+    private static long pawnSpread(long pawns, ChessGame.TeamColor color) {
+        if (color == ChessGame.TeamColor.WHITE) {
+            return ((pawns << 7) & NOT_FILE_H) | ((pawns << 9) & NOT_FILE_A);
+        }
+        return ((pawns >>> 9) & NOT_FILE_H) | ((pawns >>> 7) & NOT_FILE_A);
+    }
+
+    private static long slideRook(int sq, long occupied) {
+        return slide(sq, occupied, 1, 0) | slide(sq, occupied, -1, 0)
+                | slide(sq, occupied, 0, 1) | slide(sq, occupied, 0, -1);
+    }
+
+    private static long slideBishop(int sq, long occupied) {
+        return slide(sq, occupied, 1, 1) | slide(sq, occupied, 1, -1)
+                | slide(sq, occupied, -1, 1) | slide(sq, occupied, -1, -1);
+    }
+
+    private static long slide(int sq, long occupied, int rowStep, int colStep) {
+        long attacks = 0L;
+        int r = row(sq) + rowStep;
+        int c = column(sq) + colStep;
+        while (onBoard(r, c)) {
+            long bit = 1L << square(r, c);
+            attacks |= bit;
+            if ((occupied & bit) != 0) {
+                break;
+            }
+            r += rowStep;
+            c += colStep;
+        }
+        return attacks;
+    }
+}
@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
@@ -10,26 +9,82 @@ import java.util.Objects;
  */
 public class ChessBoard {
     ChessPiece[][] gameBoard = new ChessPiece[8][8];
+
+    // Bitboard core, one board per piece code plus occupancy per color. These
+    // are derived from gameBoard (which is what Gson serializes) and rebuilt
+    // lazily the first time they are needed after deserialization. The rebuild
+    // is locked and published through the volatile flag so that threads that
+    // only read the board can trigger it concurrently.
+    private transient long[] pieceBitboards = new long[12];
+    private transient long[] colorBitboards = new long[2];
+    private transient long occupiedBitboard;
+    private transient long zobristKey;
+    private transient volatile boolean indexed;
+
+    // Squares of each team's pieces in no particular order, the position of
+    // each occupied square within its team's list, and each team's king square
+    // (-1 when the team has no king). Maintained alongside the bitboards.
+    private transient int[][] pieceLists = new int[2][64];
+    private transient int[] pieceCounts = new int[2];
+    private transient int[] listIndex = new int[64];
+    private transient int[] kingSquares = {-1, -1};
+
+    // Piece code + 1 for every square packed four bits per square, sixteen
+    // squares per long, so the whole board can be copied as 32 bytes
+    private transient long[] packedSquares = new long[4];
+
+    // Running evaluation terms, white minus black, see Evaluation
+    private transient int midgameScore;
+    private transient int endgameScore;
+    private transient int phase;
+
+    // Neural network accumulators, kept in step with the pieces once an
+    // NnueEvaluator has attached them
+    private transient NnueAccumulator nnue;
+
+    // Undo records for makeMove/unmakeMove: the packed move in the low 16 bits,
+    // the captured piece code + 1 (0 for none) in the next 4 and the moved
+    // piece code above that. The stack starts at UNDO_CAPACITY entries and
+    // doubles when full, so any number of moves can be taken back.
+    private transient int[] undoStack;
+    private transient int undoSize;
+
+    private static final int UNDO_CAPACITY = 256;
+
     public ChessBoard() {
         
     }
 
     /**
-     * Adds a chess piece to the chessboard
+     * Adds a chess piece to the chessboard. Moves made before this can no
+     * longer be undone.
      *
      * @param position where to add the piece to
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
+        int sq = Bitboards.square(position);
+        undoSize = 0;
+        if (indexed) {
+            unindexPiece(sq, gameBoard[position.getRow()-1][position.getColumn()-1]);
+            if (piece != null) {
+                indexPiece(sq, piece);
+            }
+        }
         gameBoard[position.getRow()-1][position.getColumn()-1] = piece;
     }
 
     /**
-     * Removes a chess piece to the chessboard
+     * Removes a chess piece to the chessboard. Moves made before this can no
+     * longer be undone.
      *
      * @param position where to remove the piece from
      */
     public void removePiece(ChessPosition position){
+        undoSize = 0;
+        if (indexed) {
+            unindexPiece(Bitboards.square(position), gameBoard[position.getRow()-1][position.getColumn()-1]);
+        }
         gameBoard[position.getRow()-1][position.getColumn()-1] = null;
     }
 
@@ -50,6 +105,8 @@ public class ChessBoard {
      */
     public void resetBoard() {
         gameBoard = new ChessPiece[8][8];
+        indexed = false;
+        undoSize = 0;
         for(int i = 0; i < 8; i += 7){
             ChessGame.TeamColor teamColor;
             if(i == 0){
@@ -81,17 +138,378 @@ public class ChessBoard {
         }
     }
 
+    /**
+     * Gets the piece on a square index without allocating a position
+     *
+     * @param sq square index, see {@link Bitboards}
+     * @return the piece on that square, or null if it is empty
+     */
+    ChessPiece pieceAt(int sq) {
+        return gameBoard[sq >>> 3][sq & 7];
+    }
+
+    /** @return bitboard of every piece with the given piece code */
+    long pieces(int code) {
+        ensureIndexed();
+        return pieceBitboards[code];
+    }
+
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces(ChessPiece.code(color, type));
+    }
+
+    /** @return bitboard of every piece belonging to the given team */
+    long occupancy(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return colorBitboards[color.ordinal()];
+    }
+
+    /** @return bitboard of every occupied square */
+    long occupancy() {
+        ensureIndexed();
+        return occupiedBitboard;
+    }
+
+    /**
+     * @return Zobrist key of the pieces on the board, without the side to
+     * move, see {@link ChessGame#positionKey()}
+     */
+    long zobristKey() {
+        ensureIndexed();
+        return zobristKey;
+    }
+
+    /**
+     * @return a copy of the board packed four bits per square, each holding
+     * the piece code + 1 or 0 for an empty square
+     */
+    long[] packedSquares() {
+        ensureIndexed();
+        return packedSquares.clone();
+    }
+
+    /** @return one of the four longs of {@link #packedSquares()}, without copying */
+    long packedSquares(int index) {
+        ensureIndexed();
+        return packedSquares[index];
+    }
+
+    /**
+     * Replaces every piece on the board from the packed form returned by
+     * {@link #packedSquares()} and clears the undo history
+     *
+     * @param squares four longs, four bits per square
+     */
+    void setPackedSquares(long[] squares) {
+        indexed = false;
+        undoSize = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int nibble = (int) (squares[sq >>> 4] >>> ((sq & 15) << 2)) & 0xF;
+            gameBoard[sq >>> 3][sq & 7] = nibble == 0 ? null : ChessPiece.fromCode(nibble - 1);
+        }
+    }
+
+    /** @return sum of the middlegame evaluation terms of every piece, see {@link Evaluation} */
+    int midgameScore() {
+        ensureIndexed();
+        return midgameScore;
+    }
+
+    /** @return sum of the endgame evaluation terms of every piece */
+    int endgameScore() {
+        ensureIndexed();
+        return endgameScore;
+    }
+
+    /** @return non-pawn material on the board as a game phase, {@link Evaluation#MAX_PHASE} at the start */
+    int phase() {
+        ensureIndexed();
+        return phase;
+    }
+
+    /** @return the attached network accumulators, or null if none are attached */
+    NnueAccumulator nnue() {
+        ensureIndexed();
+        return nnue;
+    }
+
+    /**
+     * Attaches network accumulators, filling them from the pieces on the board,
+     * and keeps them up to date from then on
+     *
+     * @param accumulator accumulators to attach, replacing any attached before
+     */
+    void attachNnue(NnueAccumulator accumulator) {
+        ensureIndexed();
+        accumulator.reset();
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = pieceAt(sq);
+            if (piece != null) {
+                accumulator.add(piece.code(), sq);
+            }
+        }
+        nnue = accumulator;
+    }
+
+    /** Stops updating the attached network accumulators and drops them */
+    void detachNnue() {
+        nnue = null;
+    }
+
+    /** @return the square of the team's king, or -1 if it has none */
+    int kingSquare(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return kingSquares[color.ordinal()];
+    }
+
+    /** @return how many pieces the team has on the board */
+    int pieceCount(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return pieceCounts[color.ordinal()];
+    }
+
+    /**
+     * Gets one of a team's occupied squares. Together with {@link #pieceCount}
+     * this walks a team's pieces without scanning empty squares. The order is
+     * unspecified and changes as pieces move.
+     *
+     * @param color the team
+     * @param index index from 0 up to {@code pieceCount(color) - 1}
+     * @return square index of that piece
+     */
+    int pieceSquare(ChessGame.TeamColor color, int index) {
+        return pieceLists[color.ordinal()][index];
+    }
+
+    /**
+     * Checks whether any piece of the given team attacks a square
+     *
+     * @param sq       square index to test
+     * @param attacker team whose pieces may be attacking
+     * @return true if the square is attacked by the attacking team
+     */
+    boolean isSquareAttacked(int sq, ChessGame.TeamColor attacker) {
+        ensureIndexed();
+        int base = attacker.ordinal() * 6;
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if ((Bitboards.pawnAttacks(sq, defender) & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0) {
+            return true;
+        }
+        if ((Bitboards.knightAttacks(sq) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0) {
+            return true;
+        }
+        if ((Bitboards.kingAttacks(sq) & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long diagonal = pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+        if (diagonal != 0 && (Bitboards.bishopAttacks(sq, occupiedBitboard) & diagonal) != 0) {
+            return true;
+        }
+        long straight = pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+        return straight != 0 && (Bitboards.rookAttacks(sq, occupiedBitboard) & straight) != 0;
+    }
+
+    /**
+     * Applies a generated move and records how to undo it
+     *
+     * @param move packed move, see {@link Move}
+     */
+    void makeMove(int move) {
+        if (undoStack == null) {
+            undoStack = new int[UNDO_CAPACITY];
+        } else if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoSize * 2);
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece moved = pieceAt(from);
+        ChessPiece captured = pieceAt(to);
+        undoStack[undoSize++] = (move & 0xFFFF)
+                | (captured == null ? 0 : captured.code() + 1) << 16
+                | moved.code() << 20;
+        applyMove(move);
+    }
+
+    /**
+     * Reverts the most recent {@link #makeMove(int)}
+     *
+     * @throws IllegalStateException if there is no move to undo
+     */
+    void unmakeMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int record = undoStack[--undoSize];
+        int from = Move.from(record);
+        int to = Move.to(record);
+        int captured = ((record >>> 16) & 0xF) - 1;
+        takePiece(to);
+        putPiece(from, ChessPiece.fromCode(record >>> 20));
+        if (captured >= 0) {
+            putPiece(to, ChessPiece.fromCode(captured));
+        }
+    }
+
+    /**
+     * Applies a generated move without recording it for undo
+     *
+     * @param move packed move, see {@link Move}
+     */
+    void applyMove(int move) {
+        ensureIndexed();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece moved = takePiece(from);
+        takePiece(to);
+        if (Move.isPromotion(move)) {
+            moved = ChessPiece.fromCode(ChessPiece.code(moved.getTeamColor(), Move.promotionType(move)));
+        }
+        putPiece(to, moved);
+    }
+
+    private void putPiece(int sq, ChessPiece piece) {
+        gameBoard[sq >>> 3][sq & 7] = piece;
+        indexPiece(sq, piece);
+    }
+
+    private ChessPiece takePiece(int sq) {
+        ChessPiece piece = gameBoard[sq >>> 3][sq & 7];
+        if (piece != null) {
+            gameBoard[sq >>> 3][sq & 7] = null;
+            unindexPiece(sq, piece);
+        }
+        return piece;
+    }
+
+    /**
+     * Finds every piece of a team that attacks a square
+     *
+     * @param sq       square index to test
+     * @param attacker team whose pieces may be attacking
+     * @param occupied occupancy used to block sliding pieces
+     * @return bitboard of the attacking pieces
+     */
+    long attackers(int sq, ChessGame.TeamColor attacker, long occupied) {
+        ensureIndexed();
+        int base = attacker.ordinal() * 6;
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (Bitboards.pawnAttacks(sq, defender) & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Bitboards.knightAttacks(sq) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (Bitboards.kingAttacks(sq) & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()])
+                | (Bitboards.bishopAttacks(sq, occupied)
+                    & (pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens))
+                | (Bitboards.rookAttacks(sq, occupied)
+                    & (pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens));
+    }
+
+    private void ensureIndexed() {
+        if (!indexed) {
+            buildIndex();
+        }
+    }
+
+    private synchronized void buildIndex() {
+        if (indexed) {
+            return;
+        }
+        if (pieceBitboards == null) {
+            pieceBitboards = new long[12];
+            colorBitboards = new long[2];
+            pieceLists = new int[2][64];
+            pieceCounts = new int[2];
+            listIndex = new int[64];
+            kingSquares = new int[2];
+            packedSquares = new long[4];
+        }
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorBitboards, 0L);
+        occupiedBitboard = 0L;
+        zobristKey = 0L;
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        if (nnue != null) {
+            nnue.reset();
+        }
+        Arrays.fill(pieceCounts, 0);
+        Arrays.fill(kingSquares, -1);
+        Arrays.fill(packedSquares, 0L);
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = pieceAt(sq);
+            if (piece != null) {
+                indexPiece(sq, piece);
+            }
+        }
+        indexed = true;
+    }
+
+    private void indexPiece(int sq, ChessPiece piece) {
+        long bit = 1L << sq;
+        int code = piece.code();
+        int color = piece.getTeamColor().ordinal();
+        pieceBitboards[code] |= bit;
+        colorBitboards[color] |= bit;
+        occupiedBitboard |= bit;
+        zobristKey ^= Zobrist.piece(code, sq);
+        packedSquares[sq >>> 4] |= (long) (code + 1) << ((sq & 15) << 2);
+        midgameScore += Evaluation.midgame(code, sq);
+        endgameScore += Evaluation.endgame(code, sq);
+        phase += Evaluation.phase(code);
+        if (nnue != null) {
+            nnue.add(code, sq);
+        }
+        listIndex[sq] = pieceCounts[color];
+        pieceLists[color][pieceCounts[color]++] = sq;
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            kingSquares[color] = Long.numberOfTrailingZeros(pieceBitboards[code]);
+        }
+    }
+
+    private void unindexPiece(int sq, ChessPiece piece) {
+        if (piece == null) {
+            return;
+        }
+        long bit = ~(1L << sq);
+        int code = piece.code();
+        int color = piece.getTeamColor().ordinal();
+        pieceBitboards[code] &= bit;
+        colorBitboards[color] &= bit;
+        occupiedBitboard &= bit;
+        zobristKey ^= Zobrist.piece(code, sq);
+        packedSquares[sq >>> 4] &= ~(0xFL << ((sq & 15) << 2));
+        midgameScore -= Evaluation.midgame(code, sq);
+        endgameScore -= Evaluation.endgame(code, sq);
+        phase -= Evaluation.phase(code);
+        if (nnue != null) {
+            nnue.remove(code, sq);
+        }
+        int last = pieceLists[color][--pieceCounts[color]];
+        pieceLists[color][listIndex[sq]] = last;
+        listIndex[last] = listIndex[sq];
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            long kings = pieceBitboards[code];
+            kingSquares[color] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(gameBoard, that.gameBoard);
+        if (zobristKey() != that.zobristKey()) {
+            return false;
+        }
+        return Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(gameBoard);
+        return Long.hashCode(zobristKey());
     }
 }
@@ -1,10 +1,22 @@
 package chess;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
-import static chess.ChessPiece.PieceType.*;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -12,16 +24,49 @@ import static chess.ChessPiece.PieceType.*;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGame.HistoryTrimmingFactory.class)
 public class ChessGame {
     private TeamColor teamTurnColor;
     ChessBoard board = new ChessBoard();
     private boolean gameOver = false;
 
+    // Every move played, and the key of every position reached, so that
+    // keyHistory[i] is the position moveHistory[i] was played from. These are
+    // serialized with the game so repetitions still count after a reload, cut
+    // to the entries in use by HistoryTrimmingFactory. The history restarts
+    // whenever the position is changed other than by a move.
+    private int[] moveHistory = new int[32];
+    private long[] keyHistory = new long[33];
+    private int historySize;
+    // Index of the first position after the last capture or pawn move; no
+    // earlier position can occur again
+    private int irreversibleIndex;
+
+    // Marks a history entry as a capture or pawn move
+    private static final int IRREVERSIBLE = 1 << 16;
+
+    // Result of the last status() call, published as one immutable value so
+    // concurrent readers never pair a status with the wrong position
+    private transient volatile CachedStatus cachedStatus;
+
+    private record CachedStatus(long positionKey, GameStatus status) {}
+
     public ChessGame() {
         teamTurnColor = TeamColor.WHITE;
         board.resetBoard();
     }
 
+    /**
+     * Starts a game from a board that is already set up, with no history
+     *
+     * @param board the board to play on, used as is
+     * @param team  the team whose turn it is
+     */
+    ChessGame(ChessBoard board, TeamColor team) {
+        this.board = board;
+        teamTurnColor = team;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -48,78 +93,171 @@ public class ChessGame {
 
     /**
      * Gets a valid moves for a piece at the given location
+     * <p>
+     * This only reads the board, so any number of threads may call it on the
+     * same game at once as long as none of them is changing the game.
      *
      * @param startPosition the piece to get valid moves for
      * @return Set of valid moves for requested piece, or null if no piece at
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        List<ChessMove> legalMoves = new ArrayList<>(List.of());
-        List<ChessMove> loopMoves;
-        if(board.getPiece(startPosition) == null){
-            return legalMoves;
-        }
-        else{
-            ChessPiece myPiece = board.getPiece(startPosition);
-            loopMoves = (List<ChessMove>) myPiece.pieceMoves(board, startPosition);
-
-            for (ChessMove move : loopMoves){
-                ChessPiece takenPiece = board.getPiece(move.getEndPosition());
-                if(move.getPromotionPiece() == null){
-                    board.addPiece(move.getEndPosition(), board.getPiece(move.getStartPosition()));
-                    board.removePiece(move.getStartPosition());
-                }
-                else{
-                    ChessPiece proPiece = new ChessPiece(board.getPiece(move.getStartPosition()).getTeamColor(), move.getPromotionPiece());
-                    board.addPiece(move.getEndPosition(), proPiece);
-                    board.removePiece(move.getStartPosition());
-                }
-                if(!isInCheck(myPiece.getTeamColor())){
-                    legalMoves.add(move);
-                }
-                board.addPiece(startPosition, myPiece);
-                board.removePiece(move.getEndPosition());
-                if(takenPiece != null){
-                    board.addPiece(move.getEndPosition(), takenPiece);
-                }
-            }
+        ChessPiece myPiece = board.getPiece(startPosition);
+        if(myPiece == null){
+            return new ArrayList<>();
         }
-        return legalMoves;
+        MoveList legalMoves = new MoveList(32);
+        LegalMoveGenerator.generate(board, Bitboards.square(startPosition), legalMoves);
+        return legalMoves.toChessMoves();
     }
 
     /**
-     * Makes a move in a chess game
+     * Makes a move in a chess game. The move can be taken back with
+     * {@link #unmakeMove()}.
      *
      * @param move chess move to perform
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        if(board.getPiece(move.getStartPosition()) == null){
+        ChessPiece myPiece = board.getPiece(move.getStartPosition());
+        if(myPiece == null){
             throw new InvalidMoveException("There is no piece at this position.");
         }
-        if(board.getPiece(move.getStartPosition()).getTeamColor() != getTeamTurn()){
+        if(myPiece.getTeamColor() != getTeamTurn()){
             throw new InvalidMoveException("It is not this piece's turn.");
         }
-        Collection<ChessMove> validMoves = validMoves(move.getStartPosition());
-        if(validMoves.contains(move)){
-            if(move.getPromotionPiece() == null){
-                board.addPiece(move.getEndPosition(), board.getPiece(move.getStartPosition()));
-                board.removePiece(move.getStartPosition());
+        MoveList legalMoves = new MoveList(32);
+        LegalMoveGenerator.generate(board, Bitboards.square(move.getStartPosition()), legalMoves);
+        int packed = legalMoves.find(move);
+        if(packed == Move.NONE){
+            throw new InvalidMoveException("You made an illegal or invalid move.");
+        }
+        makeMove(packed);
+    }
+
+    /**
+     * Plays a packed move produced by the move generator without checking that
+     * it is legal. The move can be taken back with {@link #unmakeMove()}.
+     *
+     * @param move packed move, see {@link Move}
+     */
+    public void makeMove(int move) {
+        long keyBefore = positionKey();
+        boolean pawnMove = board.pieceAt(Move.from(move)).getPieceType() == ChessPiece.PieceType.PAWN;
+        board.makeMove(move);
+        teamTurnColor = teamTurnColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        recordMove(move, pawnMove, keyBefore);
+    }
+
+    /**
+     * Takes back the most recent move made with either {@code makeMove}.
+     * Moves made before the board was replaced or the game was deserialized
+     * cannot be taken back.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        boolean inHistory = historySize > 0 && keyHistory[historySize] == positionKey();
+        board.unmakeMove();
+        teamTurnColor = teamTurnColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        if(inHistory){
+            historySize--;
+            if(irreversibleIndex > historySize){
+                irreversibleIndex = historySize;
+                while(irreversibleIndex > 0 && (moveHistory[irreversibleIndex - 1] & IRREVERSIBLE) == 0){
+                    irreversibleIndex--;
+                }
             }
-            else{
-                ChessPiece promPiece = new ChessPiece(board.getPiece(move.getStartPosition()).getTeamColor(), move.getPromotionPiece());
-                board.addPiece(move.getEndPosition(), promPiece);
-                board.removePiece(move.getStartPosition());
+        }
+    }
+
+    /**
+     * Gets the moves played to reach the current position, oldest first. The
+     * history starts over whenever the board or turn is set directly.
+     *
+     * @return the packed moves, see {@link Move}
+     */
+    public MoveList moveHistory() {
+        MoveList moves = new MoveList(Math.max(historySize, 1));
+        if(keyHistory[historySize] == positionKey()){
+            for(int i = 0; i < historySize; i++){
+                moves.add(moveHistory[i] & 0xFFFF);
             }
         }
-        else{
-            throw new InvalidMoveException("You made an illegal or invalid move.");
+        return moves;
+    }
+
+    /**
+     * @return key of the position the first move of {@link #moveHistory()}
+     * was played from; only meaningful while that history is not empty
+     */
+    long historyStartKey() {
+        return keyHistory[0];
+    }
+
+    /**
+     * Counts how many times the current position, with the same team to move,
+     * has occurred in this game. Only positions since the last capture or pawn
+     * move are compared, and only by their position keys.
+     *
+     * @return the number of occurrences, including the current one
+     */
+    public int repetitionCount() {
+        long key = positionKey();
+        if(keyHistory[historySize] != key){
+            return 1;
         }
-        if(getTeamTurn() == TeamColor.WHITE){
-            setTeamTurn(TeamColor.BLACK);
+        int count = 1;
+        for(int i = historySize - 2; i >= irreversibleIndex; i -= 2){
+            if(keyHistory[i] == key){
+                count++;
+            }
         }
-        else{
-            setTeamTurn(TeamColor.WHITE);
+        return count;
+    }
+
+    /**
+     * @return True if the current position has now occurred three times
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitionCount() >= 3;
+    }
+
+    /**
+     * @return keys of the positions since the last capture or pawn move,
+     * oldest first, ending with the current position
+     */
+    long[] reversibleKeys() {
+        long key = positionKey();
+        if(keyHistory[historySize] != key){
+            return new long[]{key};
+        }
+        return Arrays.copyOfRange(keyHistory, irreversibleIndex, historySize + 1);
+    }
+
+    private boolean historyFits() {
+        return moveHistory != null && keyHistory != null && historySize >= 0
+                && historySize <= moveHistory.length && historySize < keyHistory.length
+                && irreversibleIndex >= 0 && irreversibleIndex <= historySize;
+    }
+
+    private void recordMove(int move, boolean pawnMove, long keyBefore) {
+        if(keyHistory[historySize] != keyBefore){
+            historySize = 0;
+            irreversibleIndex = 0;
+            keyHistory[0] = keyBefore;
+        }
+        if(historySize == moveHistory.length){
+            // Arrays read back from JSON are only as long as the history
+            int capacity = Math.max(historySize * 2, 32);
+            moveHistory = Arrays.copyOf(moveHistory, capacity);
+            keyHistory = Arrays.copyOf(keyHistory, capacity + 1);
+        }
+        boolean irreversible = pawnMove || Move.isCapture(move);
+        moveHistory[historySize++] = irreversible ? move | IRREVERSIBLE : move;
+        keyHistory[historySize] = positionKey();
+        if(irreversible){
+            irreversibleIndex = historySize;
         }
     }
 
@@ -130,18 +268,12 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        for(int i = 1; i < 9; i++){
-            for(int j = 1; j < 9; j++){
-                ChessPiece piece = board.getPiece(new ChessPosition(i, j));
-                if(piece == null){
-                    continue;
-                }
-                if(piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor){
-                    return isSpaceAttacked(new ChessPosition(i, j), teamColor);
-                }
-            }
+        int kingSquare = board.kingSquare(teamColor);
+        if(kingSquare < 0){
+            return false;
         }
-        return false;
+        TeamColor attacker = teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        return board.isSquareAttacked(kingSquare, attacker);
     }
 
     /**
@@ -154,21 +286,7 @@ public class ChessGame {
         if (!isInCheck(teamColor)){
             return false;
         }
-        for(int i = 1; i < 9; i++){
-            for(int j = 1; j < 9; j++){
-                if(board.getPiece(new ChessPosition(i, j)) == null){
-                    continue;
-                }
-                if(board.getPiece(new ChessPosition(i, j)).getTeamColor() != teamColor){
-                    continue;
-                }
-                Collection<ChessMove> validMovesCol = validMoves(new ChessPosition(i, j));
-                if(!validMovesCol.isEmpty()){
-                    return false;
-                }
-            }
-        }
-        return true;
+        return !hasAnyLegalMove(teamColor);
     }
 
     /**
@@ -182,21 +300,55 @@ public class ChessGame {
         if(isInCheck(teamColor)){
             return false;
         }
-        for(int i = 1; i < 9; i++){
-            for(int j = 1; j < 9; j++){
-                if(board.getPiece(new ChessPosition(i, j)) == null){
-                    continue;
-                }
-                if(board.getPiece(new ChessPosition(i, j)).getTeamColor() != teamColor){
-                    continue;
-                }
-                Collection<ChessMove> myCol = validMoves(new ChessPosition(i, j));
-                if(!myCol.isEmpty()){
-                    return false;
-                }
-            }
+        return !hasAnyLegalMove(teamColor);
+    }
+
+    /**
+     * Adds every legal move of the team to move to a list, in the packed form
+     * {@link #makeMove(int)} takes
+     *
+     * @param moves list to add the moves to
+     */
+    public void legalMoves(MoveList moves) {
+        LegalMoveGenerator.generate(board, teamTurnColor, moves);
+    }
+
+    /**
+     * Determines if a team has at least one legal move. This stops at the
+     * first legal move found, so it is much cheaper than generating every
+     * move when only the presence of one matters.
+     *
+     * @param teamColor which team to check
+     * @return True if the team can make any legal move
+     */
+    public boolean hasAnyLegalMove(TeamColor teamColor) {
+        CachedStatus cached = cachedStatus;
+        if(cached != null && teamColor == teamTurnColor && cached.status().teamToMove() == teamColor
+                && cached.positionKey() == positionKey()){
+            return cached.status().legalMoveCount() > 0;
+        }
+        return LegalMoveGenerator.hasAnyLegalMove(board, teamColor);
+    }
+
+    /**
+     * Determines check, checkmate and stalemate for the team to move with a
+     * single legal move generation. The result is reused until the position
+     * changes.
+     *
+     * @return the status of the team whose turn it is
+     */
+    public GameStatus status() {
+        TeamColor team = teamTurnColor;
+        long key = positionKey();
+        CachedStatus cached = cachedStatus;
+        if(cached != null && cached.positionKey() == key && cached.status().teamToMove() == team){
+            return cached.status();
         }
-        return true;
+        MoveList legalMoves = new MoveList();
+        LegalMoveGenerator.generate(board, team, legalMoves);
+        GameStatus status = new GameStatus(team, isInCheck(team), legalMoves.size());
+        cachedStatus = new CachedStatus(key, status);
+        return status;
     }
 
     /**
@@ -225,124 +377,75 @@ public class ChessGame {
      * @return whether the space is attacked or not
      */
     public boolean isSpaceAttacked(ChessPosition pos, TeamColor color){
-        int row = pos.getRow();
-        int col = pos.getColumn();
-        if(checkDirection(row, col, 1, 1, color, BISHOP, QUEEN)){
-            return true;
-        }
-        if (checkDirection(row, col, 1, -1, color, BISHOP, QUEEN)) {
-            return true;
-        }
-        if (checkDirection(row, col, -1, 1, color, BISHOP, QUEEN)) {
-            return true;
-        }
-        if (checkDirection(row, col, -1, -1, color, BISHOP, QUEEN)) {
-            return true;
-        }
+        TeamColor attacker = color == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        return board.isSquareAttacked(Bitboards.square(pos), attacker);
+    }
 
-        // straight (rook/queen)
-        if (checkDirection(row, col, 1, 0, color, ROOK, QUEEN)) {
-            return true;
-        }
-        if (checkDirection(row, col, -1, 0, color, ROOK, QUEEN)) {
-            return true;
-        }
-        if (checkDirection(row, col, 0, 1, color, ROOK, QUEEN)) {
-            return true;
-        }
-        if (checkDirection(row, col, 0, -1, color, ROOK, QUEEN)) {
-            return true;
-        }
-        if (checkKnightAttack(row, col, color)) {
-            return true;
-        }
-        if (checkKingAttack(row, col, color)) {
-            return true;
-        }
-        if (checkPawnAttack(row, col, color)) {
-            return true;
-        }
-        return false;
+    /**
+     * Gets a 64-bit Zobrist key for the current position: the pieces on the
+     * board and the team to move. Equal positions always have equal keys, and
+     * different positions almost never do.
+     *
+     * @return the position key
+     */
+    public long positionKey() {
+        long key = board.zobristKey();
+        return teamTurnColor == TeamColor.BLACK ? key ^ Zobrist.SIDE_TO_MOVE : key;
     }
 
-    private boolean checkDirection(int row, int col, int rowDirection, int colDirection, TeamColor color, ChessPiece.PieceType... validTypes){
-        for(int i = 1; i < 8; i++){
-            int newRow = row + rowDirection * i;
-            int newCol = col + colDirection * i;
-            if(newRow < 1 || newRow > 8 || newCol < 1 || newCol > 8){
-                break;
-            }
-            ChessPiece piece = board.getPiece(new ChessPosition(newRow, newCol));
-            if(piece == null) {
-                continue;
-            }
-            if(piece.getTeamColor() == color) {
-                break;
-            }
-            for(ChessPiece.PieceType type : validTypes) {
-                if(piece.getPieceType() == type){
-                    return true;
-                }
-            }
-            break;
-        }
-        return false;
-    }
-
-    private boolean checkKnightAttack(int row, int col, TeamColor color){
-        int[][] moves = {
-                {2,1},{2,-1},{-2,1},{-2,-1},
-                {1,2},{1,-2},{-1,2},{-1,-2}
-        };
-        for (int[] m : moves) {
-            int r = row + m[0];
-            int c = col + m[1];
-            if (r < 1 || r > 8 || c < 1 || c > 8) {
-                continue;
-            }
-            ChessPiece p = board.getPiece(new ChessPosition(r, c));
-            if (p != null && p.getTeamColor() != color && p.getPieceType() == KNIGHT) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Takes an immutable copy of the current position that stays valid while
+     * this game keeps changing. Must be called by the thread that owns the game.
+     *
+     * @return the snapshot
+     */
+    public ChessGameSnapshot snapshot() {
+        return new ChessGameSnapshot(board.packedSquares(), teamTurnColor, gameOver, positionKey());
     }
 
-    private boolean checkKingAttack(int row, int col, TeamColor color){
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) {
-                    continue;
-                }
-                int r = row + dr;
-                int c = col + dc;
-                if (r < 1 || r > 8 || c < 1 || c > 8) {
-                    continue;
-                }
-                ChessPiece p = board.getPiece(new ChessPosition(r, c));
-                if (p != null && p.getTeamColor() != color && p.getPieceType() == KING) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    /**
+     * Creates a game from a FEN string. Castling and en passant fields are
+     * accepted but ignored since this game does not have those rules.
+     *
+     * @param fen the position in Forsyth-Edwards Notation
+     * @return a new game in that position
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        ChessGame game = new ChessGame();
+        Fen.parse(fen, game);
+        return game;
     }
 
-    private boolean checkPawnAttack(int row, int col, TeamColor color) {
-        int dir = (color == TeamColor.WHITE) ? 1 : -1;
-        int[][] attacks = {{dir,1},{dir,-1}};
-        for (int[] a : attacks) {
-            int r = row + a[0];
-            int c = col + a[1];
-            if (r < 1 || r > 8 || c < 1 || c > 8) {
-                continue;
-            }
-            ChessPiece p = board.getPiece(new ChessPosition(r, c));
-            if (p != null && p.getTeamColor() != color && p.getPieceType() == PAWN) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Replaces this game's position and turn with a FEN position, and marks
+     * it as not over. Reusing one game this way avoids allocating a board per
+     * position when reading many.
+     *
+     * @param fen the position in Forsyth-Edwards Notation
+     * @throws IllegalArgumentException if the string is not valid FEN, in
+     * which case the game is left unchanged
+     */
+    public void setFen(CharSequence fen) {
+        Fen.parse(fen, this);
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        Fen.append(this, fen);
+        return fen.toString();
+    }
+
+    /**
+     * Appends the current position in Forsyth-Edwards Notation
+     *
+     * @param out where to write the FEN
+     */
+    public void appendFen(StringBuilder out) {
+        Fen.append(this, out);
     }
 
     public boolean isGameOver(){
@@ -364,6 +467,57 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamTurnColor, board);
+        return Long.hashCode(positionKey());
+    }
+
+    /**
+     * Writes a game with Gson's usual field by field form, except that the
+     * history arrays hold only the entries in use rather than their spare
+     * capacity. A history that does not fit its arrays when read back is
+     * dropped, as if the board had been set directly.
+     */
+    static final class HistoryTrimmingFactory implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != ChessGame.class) {
+                return null;
+            }
+            TypeAdapter<ChessGame> fields = gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class));
+            return (TypeAdapter<T>) new TypeAdapter<ChessGame>() {
+                @Override
+                public void write(JsonWriter out, ChessGame game) throws IOException {
+                    if (game == null) {
+                        out.nullValue();
+                        return;
+                    }
+                    JsonObject json = fields.toJsonTree(game).getAsJsonObject();
+                    trim(json, "moveHistory", game.historySize);
+                    trim(json, "keyHistory", game.historySize + 1);
+                    gson.toJson(json, out);
+                }
+
+                @Override
+                public ChessGame read(JsonReader in) throws IOException {
+                    JsonElement json = JsonParser.parseReader(in);
+                    ChessGame game = fields.fromJsonTree(json);
+                    if (game != null && !game.historyFits()) {
+                        game.moveHistory = new int[32];
+                        game.keyHistory = new long[33];
+                        game.historySize = 0;
+                        game.irreversibleIndex = 0;
+                    }
+                    return game;
+                }
+            };
+        }
+
+        private static void trim(JsonObject json, String name, int length) {
+            JsonArray array = json.getAsJsonArray(name);
+            while (array.size() > length) {
+                array.remove(array.size() - 1);
+            }
+        }
     }
 }
@@ -0,0 +1,134 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary encoding of a game's state.
+ * <p>
+ * Version 1 is {@value #ENCODED_SIZE} bytes: a version byte, a flags byte
+ * (bit 0 set when black is to move, bit 1 set when the game is over) and the
+ * board as 32 bytes with four bits per square, square a1 in the low half of
+ * the first byte. Each square holds 0 when empty or the piece code + 1, where
+ * the code is {@code color * 6 + type} using the enum ordinals of
+ * {@link ChessGame.TeamColor} and {@link ChessPiece.PieceType}.
+ * <p>
+ * The encoding holds the position only, so that every game fits the same
+ * fixed size. Move history is not kept: a decoded game starts its history
+ * over, as after {@link ChessGame#setBoard}, so repetitions before the
+ * encoding no longer count and no earlier move can be taken back. Use Gson
+ * where the history matters.
+ * <p>
+ * Encoding and decoding read and write the caller's buffer directly from its
+ * current position.
+ */
+public final class ChessGameCodec {
+    public static final byte VERSION = 1;
+    public static final int ENCODED_SIZE = 34;
+
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int GAME_OVER = 2;
+
+    private ChessGameCodec() {
+    }
+
+    /**
+     * Writes a game into a buffer, straight from the packed form its board
+     * keeps, without allocating
+     *
+     * @param game the game to encode
+     * @param out  buffer with at least {@value #ENCODED_SIZE} bytes remaining
+     */
+    public static void encode(ChessGame game, ByteBuffer out) {
+        ChessBoard board = game.getBoard();
+        out.put(VERSION);
+        out.put(flags(game.getTeamTurn(), game.isGameOver()));
+        boolean littleEndian = out.order() == ByteOrder.LITTLE_ENDIAN;
+        for (int i = 0; i < 4; i++) {
+            long squares = board.packedSquares(i);
+            out.putLong(littleEndian ? squares : Long.reverseBytes(squares));
+        }
+    }
+
+    /**
+     * Writes a snapshot into a buffer
+     *
+     * @param snapshot the position to encode
+     * @param out      buffer with at least {@value #ENCODED_SIZE} bytes remaining
+     */
+    public static void encode(ChessGameSnapshot snapshot, ByteBuffer out) {
+        out.put(VERSION);
+        out.put(flags(snapshot.getTeamTurn(), snapshot.isGameOver()));
+        boolean littleEndian = out.order() == ByteOrder.LITTLE_ENDIAN;
+        for (int i = 0; i < 4; i++) {
+            long squares = snapshot.packedSquares(i);
+            out.putLong(littleEndian ? squares : Long.reverseBytes(squares));
+        }
+    }
+
+    private static byte flags(ChessGame.TeamColor turn, boolean gameOver) {
+        return (byte) ((turn == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0) | (gameOver ? GAME_OVER : 0));
+    }
+
+    /** @return a new array holding the encoded game */
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[ENCODED_SIZE];
+        encode(game, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /**
+     * Reads a game from a buffer
+     *
+     * @param in buffer positioned at an encoded game
+     * @return a new game in the encoded state
+     * @throws IllegalArgumentException if the data is not a supported encoding
+     */
+    public static ChessGame decode(ByteBuffer in) {
+        return decodeSnapshot(in).toGame();
+    }
+
+    public static ChessGame decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads a position from a buffer without building a live game
+     *
+     * @param in buffer positioned at an encoded game
+     * @return the encoded position
+     * @throws IllegalArgumentException if the data is not a supported encoding
+     */
+    public static ChessGameSnapshot decodeSnapshot(ByteBuffer in) {
+        if (in.remaining() < ENCODED_SIZE) {
+            throw new IllegalArgumentException("Encoded game needs " + ENCODED_SIZE + " bytes");
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported encoding version " + version);
+        }
+        int flags = in.get();
+        boolean littleEndian = in.order() == ByteOrder.LITTLE_ENDIAN;
+        long[] squares = new long[4];
+        long key = 0L;
+        for (int i = 0; i < 4; i++) {
+            long packed = in.getLong();
+            squares[i] = littleEndian ? packed : Long.reverseBytes(packed);
+            for (int j = 0; j < 16; j++) {
+                int nibble = (int) (squares[i] >>> (j << 2)) & 0xF;
+                if (nibble > 12) {
+                    throw new IllegalArgumentException("Invalid piece code on square " + (i * 16 + j));
+                }
+                if (nibble != 0) {
+                    key ^= Zobrist.piece(nibble - 1, i * 16 + j);
+                }
+            }
+        }
+        ChessGame.TeamColor turn = ChessGame.TeamColor.WHITE;
+        if ((flags & BLACK_TO_MOVE) != 0) {
+            turn = ChessGame.TeamColor.BLACK;
+            key ^= Zobrist.SIDE_TO_MOVE;
+        }
+        return new ChessGameSnapshot(squares, turn, (flags & GAME_OVER) != 0, key);
+    }
+}
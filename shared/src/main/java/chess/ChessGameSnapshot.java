@@ -0,0 +1,89 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of a game's position, taken with {@link ChessGame#snapshot()}.
+ * <p>
+ * The board is held as 32 bytes, four bits per square, copied from a packed
+ * form the live board keeps up to date as pieces move, so taking a snapshot
+ * does not walk the board. Pieces returned from it are shared immutable
+ * instances. A snapshot can be handed to any number of threads while the game
+ * it came from keeps changing.
+ */
+public final class ChessGameSnapshot {
+    private final long[] squares;
+    private final ChessGame.TeamColor teamTurn;
+    private final boolean gameOver;
+    private final long positionKey;
+
+    ChessGameSnapshot(long[] squares, ChessGame.TeamColor teamTurn, boolean gameOver, long positionKey) {
+        this.squares = squares;
+        this.teamTurn = teamTurn;
+        this.gameOver = gameOver;
+        this.positionKey = positionKey;
+    }
+
+    /**
+     * Gets the piece on a square at the time of the snapshot
+     *
+     * @param position The position to get the piece from
+     * @return Either the piece at the position, or null if no piece is at that
+     * position
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return pieceAt(Bitboards.square(position));
+    }
+
+    ChessPiece pieceAt(int sq) {
+        int nibble = (int) (squares[sq >>> 4] >>> ((sq & 15) << 2)) & 0xF;
+        return nibble == 0 ? null : ChessPiece.fromCode(nibble - 1);
+    }
+
+    /** @return one of the four longs holding the packed board */
+    long packedSquares(int index) {
+        return squares[index];
+    }
+
+    /** @return Which team's turn it was */
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /** @return the position key the game had, see {@link ChessGame#positionKey()} */
+    public long positionKey() {
+        return positionKey;
+    }
+
+    /**
+     * Builds a new, independent game in this position
+     *
+     * @return a live game that can be played on without affecting the snapshot
+     */
+    public ChessGame toGame() {
+        ChessBoard board = new ChessBoard();
+        board.setPackedSquares(squares);
+        ChessGame game = new ChessGame(board, teamTurn);
+        game.setGameOver(gameOver);
+        return game;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ChessGameSnapshot that = (ChessGameSnapshot) o;
+        return positionKey == that.positionKey && gameOver == that.gameOver && teamTurn == that.teamTurn
+                && Arrays.equals(squares, that.squares);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(positionKey);
+    }
+}
@@ -1,8 +1,6 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -16,6 +14,16 @@ public class ChessPiece {
     private final ChessGame.TeamColor pieceColor;
     private final ChessPiece.PieceType type;
 
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType pieceType : PieceType.values()) {
+                PIECES[code(color, pieceType)] = new ChessPiece(color, pieceType);
+            }
+        }
+    }
+
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
@@ -43,144 +51,23 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        List<ChessMove> legalMoves = new ArrayList<>();
-        ChessPiece piece = board.getPiece(myPosition);
-        switch (piece.getPieceType()) {
-            case KING   -> addKingMoves(board, myPosition, legalMoves);
-            case KNIGHT -> addKnightMoves(board, myPosition, legalMoves);
-            case ROOK   -> addRookMoves(board, myPosition, legalMoves);
-            case BISHOP -> addBishopMoves(board, myPosition, legalMoves);
-            case QUEEN  -> {
-                addRookMoves(board, myPosition, legalMoves);
-                addBishopMoves(board, myPosition, legalMoves);
-            }
-            case PAWN   -> addPawnMoves(board, myPosition, legalMoves);
-        }
-        return legalMoves;
-    }
-
-
-    private void addIfValid(ChessBoard board, ChessPosition from, ChessPosition to, List<ChessMove> moves) {
-        if (to.getRow() < 1 || to.getRow() > 8 || to.getColumn() < 1 || to.getColumn() > 8) {
-            return;
-        }
-        ChessPiece target = board.getPiece(to);
-        if (target == null || target.getTeamColor() != pieceColor) {
-            moves.add(new ChessMove(from, to));
-        }
-    }
-
-    private void addKingMoves(ChessBoard board, ChessPosition pos, List<ChessMove> moves) {
-        int r = pos.getRow();
-        int c = pos.getColumn();
-        addIfValid(board, pos, new ChessPosition(r + 1, c), moves);
-        addIfValid(board, pos, new ChessPosition(r - 1, c), moves);
-        addIfValid(board, pos, new ChessPosition(r, c + 1), moves);
-        addIfValid(board, pos, new ChessPosition(r, c - 1), moves);
-        addIfValid(board, pos, new ChessPosition(r + 1, c + 1), moves);
-        addIfValid(board, pos, new ChessPosition(r + 1, c - 1), moves);
-        addIfValid(board, pos, new ChessPosition(r - 1, c + 1), moves);
-        addIfValid(board, pos, new ChessPosition(r - 1, c - 1), moves);
-    }
-
-    private void addKnightMoves(ChessBoard board, ChessPosition pos, List<ChessMove> moves) {
-        int r = pos.getRow();
-        int c = pos.getColumn();
-        addIfValid(board, pos, new ChessPosition(r + 2, c + 1), moves);
-        addIfValid(board, pos, new ChessPosition(r + 2, c - 1), moves);
-        addIfValid(board, pos, new ChessPosition(r - 2, c + 1), moves);
-        addIfValid(board, pos, new ChessPosition(r - 2, c - 1), moves);
-        addIfValid(board, pos, new ChessPosition(r + 1, c + 2), moves);
-        addIfValid(board, pos, new ChessPosition(r + 1, c - 2), moves);
-        addIfValid(board, pos, new ChessPosition(r - 1, c + 2), moves);
-        addIfValid(board, pos, new ChessPosition(r - 1, c - 2), moves);
-    }
-
-    private void addRookMoves(ChessBoard board, ChessPosition pos, List<ChessMove> moves) {
-        addSlideMoves(board, pos, 1, 0, moves);
-        addSlideMoves(board, pos, -1, 0, moves);
-        addSlideMoves(board, pos, 0, 1, moves);
-        addSlideMoves(board, pos, 0, -1, moves);
-    }
-
-    private void addBishopMoves(ChessBoard board, ChessPosition pos, List<ChessMove> moves) {
-        addSlideMoves(board, pos, 1, 1, moves);
-        addSlideMoves(board, pos, 1, -1, moves);
-        addSlideMoves(board, pos, -1, 1, moves);
-        addSlideMoves(board, pos, -1, -1, moves);
+        MoveList moves = new MoveList(32);
+        MoveGenerator.generate(board, Bitboards.square(myPosition), this, moves);
+        return moves.toChessMoves();
     }
 
-    private void addSlideMoves(ChessBoard board, ChessPosition start, int row, int col, List<ChessMove> moves) {
-        int r = start.getRow() + row;
-        int c = start.getColumn() + col;
-        while (r >= 1 && r <= 8 && c >= 1 && c <= 8) {
-            ChessPosition end = new ChessPosition(r, c);
-            ChessPiece target = board.getPiece(end);
-            if (target == null) {
-                moves.add(new ChessMove(start, end));
-            } else {
-                if (target.getTeamColor() != pieceColor) {
-                    moves.add(new ChessMove(start, end));
-                }
-                break;
-            }
-            r += row;
-            c += col;
-        }
-    }
-
-    private void addPawnMoves(ChessBoard board, ChessPosition pos, List<ChessMove> moves) {
-        int r = pos.getRow();
-        int c = pos.getColumn();
-        boolean isWhite = pieceColor == ChessGame.TeamColor.WHITE;
-        int direction = isWhite ? 1 : -1;
-        int startRow = isWhite ? 2 : 7;
-        int promotionRow = isWhite ? 7 : 2;
-        ChessPosition oneForward = new ChessPosition(r + direction, c);
-        if (isValidPosition(oneForward) && board.getPiece(oneForward) == null) {
-            if (r == promotionRow) {
-                addPromotionMoves(pos, oneForward, moves);
-            } else {
-                moves.add(new ChessMove(pos, oneForward));
-                if (r == startRow) {
-                    ChessPosition twoForward = new ChessPosition(r + 2 * direction, c);
-                    if (isValidPosition(twoForward) && board.getPiece(twoForward) == null) {
-                        moves.add(new ChessMove(pos, twoForward));
-                    }
-                }
-            }
-        }
-        int[] captureCols = {c - 1, c + 1};
-        for (int capCol : captureCols) {
-            if (capCol < 1 || capCol > 8) {
-                continue;
-            }
-            ChessPosition capturePos = new ChessPosition(r + direction, capCol);
-            if (!isValidPosition(capturePos)) {
-                continue;
-            }
-            ChessPiece target = board.getPiece(capturePos);
-            if (target != null && target.getTeamColor() != pieceColor) {
-                if (r == promotionRow) {
-                    addPromotionMoves(pos, capturePos, moves);
-                } else {
-                    moves.add(new ChessMove(pos, capturePos));
-                }
-            }
-        }
+    /** @return the compact code used to index bitboards for this color and type */
+    static int code(ChessGame.TeamColor color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
     }
 
-    private void addPromotionMoves(ChessPosition from, ChessPosition to, List<ChessMove> moves) {
-        moves.add(new ChessMove(from, to, PieceType.QUEEN));
-        moves.add(new ChessMove(from, to, PieceType.ROOK));
-        moves.add(new ChessMove(from, to, PieceType.BISHOP));
-        moves.add(new ChessMove(from, to, PieceType.KNIGHT));
+    int code() {
+        return code(pieceColor, type);
     }
 
-    private boolean isValidPosition(ChessPosition pos) {
-        int row = pos.getRow();
-        int col = pos.getColumn();
-        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    /** @return a shared piece instance for the given piece code */
+    static ChessPiece fromCode(int code) {
+        return PIECES[code];
     }
 
     @Override
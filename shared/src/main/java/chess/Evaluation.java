@@ -0,0 +1,169 @@
+package chess;
+
+/**
+ * Static evaluation of a position in centipawns.
+ * <p>
+ * The score is material plus a piece-square bonus for every piece, kept as a
+ * middlegame and an endgame total and blended by how much non-pawn material
+ * is left. The board adds and subtracts each piece's terms as pieces are
+ * placed, removed and moved, so evaluating a position only combines three
+ * running totals rather than scanning the board.
+ */
+public final class Evaluation {
+    /** Value of each piece type for move ordering, indexed by {@link ChessPiece.PieceType} ordinal */
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    /** Game phase with all non-pawn material on the board */
+    static final int MAX_PHASE = 24;
+
+    // Indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] MIDGAME_MATERIAL = {0, 1025, 365, 337, 477, 82};
+    private static final int[] ENDGAME_MATERIAL = {0, 936, 297, 281, 512, 94};
+    private static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+
+    // Piece-square bonuses from white's side, written with rank 8 first as a
+    // board is usually drawn
+    private static final int[] KING_MIDGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] PAWN_MIDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    // Material plus bonus for each piece code and square, negated for black
+    private static final int[] MIDGAME = new int[12 * 64];
+    private static final int[] ENDGAME = new int[12 * 64];
+
+    static {
+        int[][] midgame = {KING_MIDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDGAME};
+        int[][] endgame = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (int type = 0; type < 6; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                // The tables start at a8, so white reads them with the rank flipped
+                MIDGAME[(type << 6) | sq] = MIDGAME_MATERIAL[type] + midgame[type][sq ^ 56];
+                ENDGAME[(type << 6) | sq] = ENDGAME_MATERIAL[type] + endgame[type][sq ^ 56];
+                MIDGAME[((6 + type) << 6) | sq] = -(MIDGAME_MATERIAL[type] + midgame[type][sq]);
+                ENDGAME[((6 + type) << 6) | sq] = -(ENDGAME_MATERIAL[type] + endgame[type][sq]);
+            }
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * Scores a game's position for the team whose turn it is
+     *
+     * @param game the position to score
+     * @return centipawns, positive when the team to move is better off
+     */
+    public static int evaluate(ChessGame game) {
+        return evaluate(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Scores a game's position for one team
+     *
+     * @param game the position to score
+     * @param team the team to score for
+     * @return centipawns, positive when that team is better off
+     */
+    public static int evaluate(ChessGame game, ChessGame.TeamColor team) {
+        return evaluate(game.getBoard(), team);
+    }
+
+    static int evaluate(ChessBoard board, ChessGame.TeamColor side) {
+        int phase = Math.min(board.phase(), MAX_PHASE);
+        int score = (board.midgameScore() * phase + board.endgameScore() * (MAX_PHASE - phase)) / MAX_PHASE;
+        return side == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /** @return middlegame terms of a piece code on a square, from white's side */
+    static int midgame(int code, int sq) {
+        return MIDGAME[(code << 6) | sq];
+    }
+
+    /** @return endgame terms of a piece code on a square, from white's side */
+    static int endgame(int code, int sq) {
+        return ENDGAME[(code << 6) | sq];
+    }
+
+    /** @return how much a piece code counts toward the game phase */
+    static int phase(int code) {
+        return PHASE_WEIGHTS[code % 6];
+    }
+}
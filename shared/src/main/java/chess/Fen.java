@@ -0,0 +1,200 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * <p>
+ * Only piece placement and side to move affect the game. Castling and en
+ * passant are not part of this engine's rules, so those fields are checked
+ * for well-formedness and then ignored, and the move clocks are accepted but
+ * not kept. Written FEN always has "- - 0 1" for the last four fields.
+ * Parsing goes straight from the characters into the packed four-bit board
+ * without building strings or positions.
+ */
+final class Fen {
+    /** FEN of the standard starting position */
+    static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private static final String PIECE_CHARS = "KQBNRPkqbnrp";
+
+    // Piece code + 1 for each piece letter, 0 for anything else
+    private static final byte[] CODES = new byte[128];
+
+    static {
+        for (int code = 0; code < PIECE_CHARS.length(); code++) {
+            CODES[PIECE_CHARS.charAt(code)] = (byte) (code + 1);
+        }
+    }
+
+    private Fen() {
+    }
+
+    /**
+     * Parses a FEN string into a game, replacing its position and turn and
+     * marking it as not over. The game is left unchanged if the string is not
+     * valid.
+     *
+     * @param fen  the position to read
+     * @param game the game to set up
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    static void parse(CharSequence fen, ChessGame game) {
+        int length = fen.length();
+        long[] squares = new long[4];
+        int i = 0;
+        int row = 7;
+        int col = 0;
+        for (; i < length; i++) {
+            char c = fen.charAt(i);
+            if (c == ' ') {
+                break;
+            }
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw invalid(fen, "rank " + (row + 1) + " does not cover eight squares");
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int code = c < 128 ? CODES[c] : 0;
+                if (code == 0) {
+                    throw invalid(fen, "unexpected '" + c + "' in piece placement");
+                }
+                if (col < 8) {
+                    int sq = row * 8 + col;
+                    squares[sq >>> 4] |= (long) code << ((sq & 15) << 2);
+                }
+                col++;
+            }
+            if (col > 8) {
+                throw invalid(fen, "rank " + (row + 1) + " does not cover eight squares");
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw invalid(fen, "piece placement must describe eight ranks");
+        }
+
+        i = skipSpace(fen, i);
+        if (i >= length) {
+            throw invalid(fen, "missing side to move");
+        }
+        ChessGame.TeamColor turn;
+        switch (fen.charAt(i)) {
+            case 'w' -> turn = ChessGame.TeamColor.WHITE;
+            case 'b' -> turn = ChessGame.TeamColor.BLACK;
+            default -> throw invalid(fen, "side to move must be 'w' or 'b'");
+        }
+        i++;
+        if (i < length && fen.charAt(i) != ' ') {
+            throw invalid(fen, "side to move must be 'w' or 'b'");
+        }
+
+        i = skipSpace(fen, i);
+        if (i < length) {
+            i = checkCastling(fen, i);
+            i = skipSpace(fen, i);
+        }
+        if (i < length) {
+            i = checkEnPassant(fen, i);
+            i = skipSpace(fen, i);
+        }
+        for (int clock = 0; clock < 2 && i < length; clock++) {
+            i = checkNumber(fen, i);
+            i = skipSpace(fen, i);
+        }
+        if (i < length) {
+            throw invalid(fen, "unexpected text after move clocks");
+        }
+
+        game.getBoard().setPackedSquares(squares);
+        game.setTeamTurn(turn);
+        game.setGameOver(false);
+    }
+
+    /**
+     * Writes a game's position as FEN
+     *
+     * @param game the game to describe
+     * @param out  where to append the FEN
+     */
+    static void append(ChessGame game, StringBuilder out) {
+        ChessBoard board = game.getBoard();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.pieceAt(row * 8 + col);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(PIECE_CHARS.charAt(piece.code()));
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w" : " b").append(" - - 0 1");
+    }
+
+    private static int checkCastling(CharSequence fen, int i) {
+        if (fen.charAt(i) == '-') {
+            return i + 1;
+        }
+        int start = i;
+        while (i < fen.length() && "KQkq".indexOf(fen.charAt(i)) >= 0) {
+            i++;
+        }
+        if (i == start || i - start > 4) {
+            throw invalid(fen, "bad castling field");
+        }
+        return i;
+    }
+
+    private static int checkEnPassant(CharSequence fen, int i) {
+        if (fen.charAt(i) == '-') {
+            return i + 1;
+        }
+        if (i + 1 >= fen.length()) {
+            throw invalid(fen, "bad en passant field");
+        }
+        char file = fen.charAt(i);
+        char rank = fen.charAt(i + 1);
+        if (file < 'a' || file > 'h' || (rank != '3' && rank != '6')) {
+            throw invalid(fen, "bad en passant field");
+        }
+        return i + 2;
+    }
+
+    private static int checkNumber(CharSequence fen, int i) {
+        int start = i;
+        while (i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            i++;
+        }
+        if (i == start) {
+            throw invalid(fen, "move clocks must be numbers");
+        }
+        return i;
+    }
+
+    private static int skipSpace(CharSequence fen, int i) {
+        if (i < fen.length() && fen.charAt(i) != ' ') {
+            throw invalid(fen, "fields must be separated by spaces");
+        }
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN \"" + fen + "\": " + reason);
+    }
+}
@@ -0,0 +1,22 @@
+package chess;
+
+/**
+ * Check, checkmate and stalemate state of the team to move, as computed by
+ * {@link ChessGame#status()}
+ *
+ * @param teamToMove     the team the status describes
+ * @param inCheck        whether that team's king is attacked
+ * @param legalMoveCount how many legal moves that team has
+ */
+public record GameStatus(ChessGame.TeamColor teamToMove, boolean inCheck, int legalMoveCount) {
+
+    /** @return True if the team to move is in check and has no legal moves */
+    public boolean isCheckmate() {
+        return inCheck && legalMoveCount == 0;
+    }
+
+    /** @return True if the team to move is not in check but has no legal moves */
+    public boolean isStalemate() {
+        return !inCheck && legalMoveCount == 0;
+    }
+}
@@ -0,0 +1,167 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of the legal moves of positions, shared by many games.
+ * <p>
+ * Games that pass through the same positions, such as common openings, get
+ * their legal moves from one generation instead of each regenerating them.
+ * Entries are found by position key and the team to move, and each one also
+ * holds the packed board so a key collision can never hand out another
+ * position's moves. A new position replaces whatever entry its key maps to.
+ * <p>
+ * Entries are immutable and the table is written without locking, like
+ * {@link TranspositionTable}: a thread that misses another thread's write
+ * just generates the moves again. One cache may be used by any number of
+ * threads, each working on a game no other thread is changing.
+ */
+public final class LegalMoveCache {
+
+    /**
+     * Counts of how lookups went since the cache was created or cleared
+     *
+     * @param hits      lookups answered from the cache
+     * @param misses    lookups that had to generate moves
+     * @param evictions stored positions replaced by a different position
+     */
+    public record Stats(long hits, long misses, long evictions) {
+
+        /** @return fraction of lookups answered from the cache */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(long key, long squares0, long squares1, long squares2, long squares3, int[] moves) {
+
+        boolean matches(long key, ChessBoard board) {
+            return this.key == key
+                    && squares0 == board.packedSquares(0) && squares1 == board.packedSquares(1)
+                    && squares2 == board.packedSquares(2) && squares3 == board.packedSquares(3);
+        }
+    }
+
+    private final Entry[] entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity most positions to hold, rounded down to a power of two
+     */
+    public LegalMoveCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache needs room for at least one position");
+        }
+        entries = new Entry[Integer.highestOneBit(capacity)];
+        mask = entries.length - 1;
+    }
+
+    /** @return number of positions the cache holds */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /** @return the lookup counts so far */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /** Forgets every stored position and resets the counts */
+    public void clear() {
+        Arrays.fill(entries, null);
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * Same as {@link ChessGame#validMoves(ChessPosition)}, using the cache
+     *
+     * @param game          the game; must not be changed by another thread meanwhile
+     * @param startPosition the piece to get valid moves for
+     * @return the piece's legal moves, empty if there is no piece there
+     */
+    public Collection<ChessMove> validMoves(ChessGame game, ChessPosition startPosition) {
+        ChessBoard board = game.getBoard();
+        int from = Bitboards.square(startPosition);
+        ChessPiece piece = board.pieceAt(from);
+        List<ChessMove> valid = new ArrayList<>();
+        if (piece == null) {
+            return valid;
+        }
+        for (int move : moves(board, piece.getTeamColor())) {
+            if (Move.from(move) == from) {
+                valid.add(Move.toChessMove(move));
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Same as {@link ChessGame#makeMove(ChessMove)}, checking the move against
+     * the cached legal moves
+     *
+     * @param game the game to play the move in
+     * @param move chess move to perform
+     * @throws InvalidMoveException if move is invalid
+     */
+    public void makeMove(ChessGame game, ChessMove move) throws InvalidMoveException {
+        ChessPiece piece = game.getBoard().getPiece(move.getStartPosition());
+        if (piece == null) {
+            throw new InvalidMoveException("There is no piece at this position.");
+        }
+        if (piece.getTeamColor() != game.getTeamTurn()) {
+            throw new InvalidMoveException("It is not this piece's turn.");
+        }
+        for (int packed : moves(game.getBoard(), game.getTeamTurn())) {
+            if (Move.matches(packed, move)) {
+                game.makeMove(packed);
+                return;
+            }
+        }
+        throw new InvalidMoveException("You made an illegal or invalid move.");
+    }
+
+    /**
+     * Same as {@link ChessGame#status()}, counting the cached legal moves
+     *
+     * @param game the game; must not be changed by another thread meanwhile
+     * @return the status of the team whose turn it is
+     */
+    public GameStatus status(ChessGame game) {
+        ChessGame.TeamColor team = game.getTeamTurn();
+        return new GameStatus(team, game.isInCheck(team), moves(game.getBoard(), team).length);
+    }
+
+    /**
+     * @return every legal move of the team, packed; shared, so callers must
+     * not change the array
+     */
+    int[] moves(ChessBoard board, ChessGame.TeamColor color) {
+        long key = color == ChessGame.TeamColor.BLACK ? board.zobristKey() ^ Zobrist.SIDE_TO_MOVE : board.zobristKey();
+        int index = (int) key & mask;
+        Entry entry = entries[index];
+        if (entry != null && entry.matches(key, board)) {
+            hits.increment();
+            return entry.moves;
+        }
+        misses.increment();
+        MoveList legalMoves = new MoveList();
+        LegalMoveGenerator.generate(board, color, legalMoves);
+        if (entry != null) {
+            evictions.increment();
+        }
+        Entry stored = new Entry(key, board.packedSquares(0), board.packedSquares(1), board.packedSquares(2),
+                board.packedSquares(3), legalMoves.toArray());
+        entries[index] = stored;
+        return stored.moves;
+    }
+}
@@ -0,0 +1,181 @@
+package chess;
+
+/**
+ * Generates only legal moves, without playing each candidate to see if it
+ * leaves the king in check.
+ * <p>
+ * The pieces giving check and the pieces pinned to the king are found once
+ * per call. In double check only the king may move; in single check other
+ * pieces are limited to capturing the checker or blocking its ray; pinned
+ * pieces are limited to the line through their king and the pinning piece.
+ * King moves are kept when the destination is not attacked with the king
+ * lifted off the board, so sliders see through the square it leaves.
+ */
+final class LegalMoveGenerator {
+
+    private LegalMoveGenerator() {
+    }
+
+    /**
+     * Adds every legal move of a team to the list
+     *
+     * @param board the board to generate on
+     * @param color the team to generate moves for
+     * @param moves list to append to
+     */
+    static void generate(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        generate(board, color, -1, moves);
+    }
+
+    /**
+     * Adds the legal moves of the piece on a square to the list
+     *
+     * @param board the board to generate on
+     * @param from  square of the piece to move, which must not be empty
+     * @param moves list to append to
+     */
+    static void generate(ChessBoard board, int from, MoveList moves) {
+        generate(board, board.pieceAt(from).getTeamColor(), from, moves);
+    }
+
+    /**
+     * @param only square of the single piece to generate for, or -1 for every piece of the team
+     */
+    private static void generate(ChessBoard board, ChessGame.TeamColor color, int only, MoveList moves) {
+        int kingSquare = board.kingSquare(color);
+        if (kingSquare < 0) {
+            // Without a king nothing can be illegal
+            if (only >= 0) {
+                MoveGenerator.generate(board, only, board.pieceAt(only), moves);
+            } else {
+                MoveGenerator.generate(board, color, moves);
+            }
+            return;
+        }
+        ChessGame.TeamColor enemy = MoveGenerator.opponent(color);
+        long occupied = board.occupancy();
+        long checkers = board.attackers(kingSquare, enemy, occupied);
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = (checkers & (checkers - 1)) != 0
+                    ? 0L : checkers | Bitboards.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = pinnedPieces(board, color, kingSquare);
+
+        int count = only >= 0 ? 1 : board.pieceCount(color);
+        for (int i = 0; i < count; i++) {
+            int from = only >= 0 ? only : board.pieceSquare(color, i);
+            if (from == kingSquare) {
+                addKingMoves(board, color, kingSquare, moves);
+                continue;
+            }
+            if (checkMask == 0) {
+                continue;
+            }
+            long allowed = checkMask;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Bitboards.line(kingSquare, from);
+            }
+            MoveGenerator.generate(board, from, board.pieceAt(from), allowed, moves);
+        }
+    }
+
+    /**
+     * Checks whether a team has at least one legal move, stopping at the
+     * first one found. King steps are tried first, then captures of enemy
+     * pieces, then every other move. For pieces other than the king a legal
+     * move exists exactly when its reachable squares overlap the squares
+     * allowed by checks and pins, so no move list is built.
+     *
+     * @param board the board to test
+     * @param color the team to test
+     * @return True if the team has any legal move
+     */
+    static boolean hasAnyLegalMove(ChessBoard board, ChessGame.TeamColor color) {
+        int kingSquare = board.kingSquare(color);
+        int count = board.pieceCount(color);
+        if (kingSquare < 0) {
+            for (int i = 0; i < count; i++) {
+                int from = board.pieceSquare(color, i);
+                if (MoveGenerator.targets(board, from, board.pieceAt(from)) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        ChessGame.TeamColor enemy = MoveGenerator.opponent(color);
+        long withoutKing = board.occupancy() & ~(1L << kingSquare);
+        long kingTargets = Bitboards.kingAttacks(kingSquare) & ~board.occupancy(color);
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (board.attackers(to, enemy, withoutKing) == 0) {
+                return true;
+            }
+        }
+        long checkers = board.attackers(kingSquare, enemy, board.occupancy());
+        if ((checkers & (checkers - 1)) != 0) {
+            return false;
+        }
+        long checkMask = checkers == 0
+                ? -1L : checkers | Bitboards.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        long pinned = pinnedPieces(board, color, kingSquare);
+        long enemyPieces = board.occupancy(enemy);
+        for (int pass = 0; pass < 2; pass++) {
+            long wanted = pass == 0 ? enemyPieces : ~enemyPieces;
+            for (int i = 0; i < count; i++) {
+                int from = board.pieceSquare(color, i);
+                if (from == kingSquare) {
+                    continue;
+                }
+                long allowed = checkMask & wanted;
+                if ((pinned & (1L << from)) != 0) {
+                    allowed &= Bitboards.line(kingSquare, from);
+                }
+                if ((MoveGenerator.targets(board, from, board.pieceAt(from)) & allowed) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the pieces of a team that are the only piece between their king
+     * and an enemy slider aimed at it
+     */
+    static long pinnedPieces(ChessBoard board, ChessGame.TeamColor color, int kingSquare) {
+        ChessGame.TeamColor enemy = MoveGenerator.opponent(color);
+        long enemyQueens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, 0L)
+                & (board.pieces(enemy, ChessPiece.PieceType.ROOK) | enemyQueens))
+                | (Bitboards.bishopAttacks(kingSquare, 0L)
+                & (board.pieces(enemy, ChessPiece.PieceType.BISHOP) | enemyQueens));
+        long occupied = board.occupancy();
+        long own = board.occupancy(color);
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(kingSquare, sniper) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    private static void addKingMoves(ChessBoard board, ChessGame.TeamColor color, int kingSquare, MoveList moves) {
+        ChessGame.TeamColor enemy = MoveGenerator.opponent(color);
+        long enemyPieces = board.occupancy(enemy);
+        long withoutKing = board.occupancy() & ~(1L << kingSquare);
+        long targets = Bitboards.kingAttacks(kingSquare) & ~board.occupancy(color);
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (board.attackers(to, enemy, withoutKing) == 0) {
+                moves.add(Move.of(kingSquare, to, (enemyPieces & (1L << to)) != 0 ? Move.CAPTURE : Move.QUIET));
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package chess;
+
+/**
+ * Packed 16-bit move encoding used by the move generator.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square and bits 12-15
+ * the move flags. Square indices follow {@link Bitboards}. Moves are plain
+ * ints so they can be stored in a {@link MoveList} without allocating; a
+ * {@link ChessMove} is only built when a move leaves the chess package.
+ */
+public final class Move {
+    /** Not a legal move in any position (a1 to a1) */
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int CAPTURE = 4;
+    public static final int PROMOTION = 8;
+
+    private static final ChessPiece.PieceType[] PROMOTION_TYPES = {
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.QUEEN
+    };
+
+    private Move() {
+    }
+
+    /**
+     * Packs a move
+     *
+     * @param from  start square index
+     * @param to    end square index
+     * @param flags combination of the flag constants and promotion bits
+     * @return the packed move
+     */
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    /**
+     * @return Type of piece a pawn promotes to with this move, or null if
+     * the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotionType(int move) {
+        return isPromotion(move) ? PROMOTION_TYPES[flags(move) & 3] : null;
+    }
+
+    /**
+     * @return the flag bits that mark a promotion to the given piece type
+     */
+    public static int promotionFlags(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KNIGHT -> PROMOTION;
+            case BISHOP -> PROMOTION | 1;
+            case ROOK -> PROMOTION | 2;
+            case QUEEN -> PROMOTION | 3;
+            default -> throw new IllegalArgumentException("Cannot promote to " + type);
+        };
+    }
+
+    /**
+     * @return true if the packed move goes between the same squares and
+     * promotes to the same piece as the given move
+     */
+    public static boolean matches(int move, ChessMove chessMove) {
+        return from(move) == Bitboards.square(chessMove.getStartPosition())
+                && to(move) == Bitboards.square(chessMove.getEndPosition())
+                && promotionType(move) == chessMove.getPromotionPiece();
+    }
+
+    /** @return the public API form of a packed move */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(Bitboards.position(from(move)), Bitboards.position(to(move)), promotionType(move));
+    }
+
+    /** @return the move in coordinate notation, such as e7e8q */
+    public static String toString(int move) {
+        StringBuilder builder = new StringBuilder(5);
+        appendSquare(builder, from(move));
+        appendSquare(builder, to(move));
+        ChessPiece.PieceType promotion = promotionType(move);
+        if (promotion != null) {
+            builder.append(switch (promotion) {
+                case KNIGHT -> 'n';
+                case BISHOP -> 'b';
+                case ROOK -> 'r';
+                default -> 'q';
+            });
+        }
+        return builder.toString();
+    }
+
+    private static void appendSquare(StringBuilder builder, int sq) {
+        builder.append((char) ('a' + (sq & 7))).append((char) ('1' + (sq >>> 3)));
+    }
+}
@@ -0,0 +1,143 @@
+package chess;
+
+/**
+ * Pseudo-legal move generation on the bitboard core.
+ * <p>
+ * Moves are appended to a caller supplied {@link MoveList} in packed form.
+ * Moves that would leave the mover's king in check are not filtered out.
+ */
+final class MoveGenerator {
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds every pseudo-legal move of a team to the list
+     *
+     * @param board the board to generate on
+     * @param color the team to generate moves for
+     * @param moves list to append to
+     */
+    static void generate(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        int count = board.pieceCount(color);
+        for (int i = 0; i < count; i++) {
+            int from = board.pieceSquare(color, i);
+            generate(board, from, board.pieceAt(from), moves);
+        }
+    }
+
+    /**
+     * Adds the pseudo-legal moves of a single piece to the list
+     *
+     * @param board the board to generate on
+     * @param from  square the piece moves from
+     * @param piece the piece to move, which sets the moving team and type
+     * @param moves list to append to
+     */
+    static void generate(ChessBoard board, int from, ChessPiece piece, MoveList moves) {
+        generate(board, from, piece, -1L, moves);
+    }
+
+    /**
+     * Adds the pseudo-legal moves of a single piece that end on one of the given squares
+     *
+     * @param board   the board to generate on
+     * @param from    square the piece moves from
+     * @param piece   the piece to move, which sets the moving team and type
+     * @param allowed bitboard of squares the moves may end on
+     * @param moves   list to append to
+     */
+    static void generate(ChessBoard board, int from, ChessPiece piece, long allowed, MoveList moves) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long occupied = board.occupancy();
+        long targets = switch (piece.getPieceType()) {
+            case KING -> Bitboards.kingAttacks(from);
+            case KNIGHT -> Bitboards.knightAttacks(from);
+            case ROOK -> Bitboards.rookAttacks(from, occupied);
+            case BISHOP -> Bitboards.bishopAttacks(from, occupied);
+            case QUEEN -> Bitboards.queenAttacks(from, occupied);
+            case PAWN -> {
+                addPawnMoves(board, from, color, allowed, moves);
+                yield 0L;
+            }
+        };
+        targets &= allowed;
+        long enemy = board.occupancy(opponent(color));
+        addMoves(from, targets & enemy, Move.CAPTURE, moves);
+        addMoves(from, targets & ~occupied, Move.QUIET, moves);
+    }
+
+    /**
+     * Gets every square a piece could move to, ignoring whether the move would
+     * leave its own king in check
+     *
+     * @param board the board to generate on
+     * @param from  square the piece moves from
+     * @param piece the piece to move
+     * @return bitboard of reachable squares
+     */
+    static long targets(ChessBoard board, int from, ChessPiece piece) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long occupied = board.occupancy();
+        long own = board.occupancy(color);
+        return switch (piece.getPieceType()) {
+            case KING -> Bitboards.kingAttacks(from) & ~own;
+            case KNIGHT -> Bitboards.knightAttacks(from) & ~own;
+            case ROOK -> Bitboards.rookAttacks(from, occupied) & ~own;
+            case BISHOP -> Bitboards.bishopAttacks(from, occupied) & ~own;
+            case QUEEN -> Bitboards.queenAttacks(from, occupied) & ~own;
+            case PAWN -> {
+                boolean isWhite = color == ChessGame.TeamColor.WHITE;
+                long pawn = 1L << from;
+                long oneForward = (isWhite ? pawn << 8 : pawn >>> 8) & ~occupied;
+                long twoForward = 0L;
+                if ((pawn & (isWhite ? Bitboards.RANK_1 << 8 : Bitboards.RANK_8 >>> 8)) != 0) {
+                    twoForward = (isWhite ? oneForward << 8 : oneForward >>> 8) & ~occupied;
+                }
+                yield oneForward | twoForward
+                        | (Bitboards.pawnAttacks(from, color) & board.occupancy(opponent(color)));
+            }
+        };
+    }
+
+    static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    private static void addMoves(int from, long targets, int flags, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(Move.of(from, to, flags));
+        }
+    }
+
+    private static void addPawnMoves(ChessBoard board, int from, ChessGame.TeamColor color, long allowed,
+                                     MoveList moves) {
+        boolean isWhite = color == ChessGame.TeamColor.WHITE;
+        long pawn = 1L << from;
+        long empty = ~board.occupancy();
+        long enemy = board.occupancy(opponent(color));
+        long startRank = isWhite ? Bitboards.RANK_1 << 8 : Bitboards.RANK_8 >>> 8;
+        long oneForward = (isWhite ? pawn << 8 : pawn >>> 8) & empty;
+        if ((pawn & startRank) != 0) {
+            long twoForward = (isWhite ? oneForward << 8 : oneForward >>> 8) & empty;
+            addMoves(from, twoForward & allowed, Move.DOUBLE_PAWN_PUSH, moves);
+        }
+        addPawnTargets(from, Bitboards.pawnAttacks(from, color) & enemy & allowed, Move.CAPTURE, moves);
+        addPawnTargets(from, oneForward & allowed, Move.QUIET, moves);
+    }
+
+    private static void addPawnTargets(int from, long targets, int flags, MoveList moves) {
+        long promotions = targets & (Bitboards.RANK_1 | Bitboards.RANK_8);
+        addMoves(from, targets & ~promotions, flags, moves);
+        while (promotions != 0) {
+            int to = Long.numberOfTrailingZeros(promotions);
+            promotions &= promotions - 1;
+            moves.add(Move.of(from, to, flags | Move.PROMOTION | 3));
+            moves.add(Move.of(from, to, flags | Move.PROMOTION | 2));
+            moves.add(Move.of(from, to, flags | Move.PROMOTION | 1));
+            moves.add(Move.of(from, to, flags | Move.PROMOTION));
+        }
+    }
+}
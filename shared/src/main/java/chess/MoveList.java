@@ -0,0 +1,79 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable list of packed moves (see {@link Move}) backed by an int array.
+ * <p>
+ * Generators append to a list supplied by the caller, so a list that is
+ * cleared and reused does not allocate once it has grown to fit.
+ */
+public final class MoveList {
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(64);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Finds the packed form of a move from the public API
+     *
+     * @param chessMove move to look for
+     * @return the matching packed move, or {@link Move#NONE} if it is not in this list
+     */
+    public int find(ChessMove chessMove) {
+        for (int i = 0; i < size; i++) {
+            if (Move.matches(moves[i], chessMove)) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    /** @return the moves in this list converted to {@link ChessMove} */
+    public List<ChessMove> toChessMoves() {
+        List<ChessMove> chessMoves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(Move.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+
+    /** @return a copy of the packed moves in this list */
+    public int[] toArray() {
+        return Arrays.copyOf(moves, size);
+    }
+}
@@ -0,0 +1,50 @@
+package chess;
+
+/**
+ * First-layer outputs of an {@link NnueNetwork} for one board, one set per
+ * team's point of view. The board adds or subtracts a row of feature weights
+ * whenever a piece is placed or removed, so only the small output layer is
+ * computed per evaluation.
+ */
+final class NnueAccumulator {
+    final NnueNetwork network;
+    final NnueKernel kernel;
+    private final short[] white;
+    private final short[] black;
+
+    NnueAccumulator(NnueNetwork network, NnueKernel kernel) {
+        this.network = network;
+        this.kernel = kernel;
+        white = new short[network.hiddenSize];
+        black = new short[network.hiddenSize];
+        reset();
+    }
+
+    /** Sets both sides back to the hidden biases, as for an empty board */
+    void reset() {
+        System.arraycopy(network.featureBiases, 0, white, 0, white.length);
+        System.arraycopy(network.featureBiases, 0, black, 0, black.length);
+    }
+
+    void add(int code, int sq) {
+        int hidden = network.hiddenSize;
+        kernel.add(white, network.featureWeights, NnueNetwork.feature(code, sq, ChessGame.TeamColor.WHITE) * hidden, hidden);
+        kernel.add(black, network.featureWeights, NnueNetwork.feature(code, sq, ChessGame.TeamColor.BLACK) * hidden, hidden);
+    }
+
+    void remove(int code, int sq) {
+        int hidden = network.hiddenSize;
+        kernel.subtract(white, network.featureWeights,
+                NnueNetwork.feature(code, sq, ChessGame.TeamColor.WHITE) * hidden, hidden);
+        kernel.subtract(black, network.featureWeights,
+                NnueNetwork.feature(code, sq, ChessGame.TeamColor.BLACK) * hidden, hidden);
+    }
+
+    /** @return the network's score in centipawns for the given team */
+    int evaluate(ChessGame.TeamColor side) {
+        short[] us = side == ChessGame.TeamColor.WHITE ? white : black;
+        short[] them = side == ChessGame.TeamColor.WHITE ? black : white;
+        long output = kernel.forward(us, them, network.outputWeights, network.hiddenSize) + (long) network.outputBias;
+        return (int) (output * NnueNetwork.EVAL_SCALE / (NnueNetwork.ACTIVATION_MAX * NnueNetwork.OUTPUT_SCALE));
+    }
+}
@@ -0,0 +1,106 @@
+package chess;
+
+/**
+ * Scores positions with an {@link NnueNetwork}.
+ * <p>
+ * Once {@link #attach attached} to a game, its board keeps a set of
+ * accumulators that it updates on every piece placed, removed or moved, so
+ * each evaluation of that game costs one pass over the small output layer.
+ * The accumulators stay until {@link #detach detached}; a {@link Search}
+ * attaches them for just the length of a search. Games that are not attached
+ * are evaluated from scratch. The
+ * arithmetic runs on SIMD vectors when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, and in plain Java otherwise.
+ */
+public final class NnueEvaluator {
+    private final NnueNetwork network;
+    private final NnueKernel kernel;
+
+    /**
+     * @param network the weights to evaluate with
+     */
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, NnueKernel.best());
+    }
+
+    private NnueEvaluator(NnueNetwork network, NnueKernel kernel) {
+        this.network = network;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Creates an evaluator that never uses SIMD, for comparing against the
+     * default one
+     *
+     * @param network the weights to evaluate with
+     * @return the evaluator
+     */
+    public static NnueEvaluator scalar(NnueNetwork network) {
+        return new NnueEvaluator(network, NnueKernel.scalar());
+    }
+
+    /** @return which arithmetic this evaluator uses, such as "scalar" or "vector-256" */
+    public String kernelName() {
+        return kernel.name();
+    }
+
+    /**
+     * Starts keeping accumulators for this evaluator on a game's board,
+     * replacing any it had
+     *
+     * @param game the game to track
+     */
+    public void attach(ChessGame game) {
+        game.getBoard().attachNnue(new NnueAccumulator(network, kernel));
+    }
+
+    /**
+     * Stops keeping this evaluator's accumulators on a game's board, so moves
+     * no longer pay to update them. Does nothing if they are not attached.
+     *
+     * @param game the game to stop tracking
+     */
+    public void detach(ChessGame game) {
+        if (accumulator(game) != null) {
+            game.getBoard().detachNnue();
+        }
+    }
+
+    /**
+     * Scores a game's position for the team whose turn it is, from the
+     * attached accumulators if there are any and from scratch otherwise
+     *
+     * @param game the position to score
+     * @return centipawns, positive when the team to move is better off
+     */
+    public int evaluate(ChessGame game) {
+        NnueAccumulator accumulator = accumulator(game);
+        return accumulator != null ? accumulator.evaluate(game.getTeamTurn()) : evaluateFromScratch(game);
+    }
+
+    /** @return this evaluator's accumulators on the game's board, or null if it is not attached */
+    NnueAccumulator accumulator(ChessGame game) {
+        NnueAccumulator accumulator = game.getBoard().nnue();
+        return accumulator != null && accumulator.network == network && accumulator.kernel == kernel
+                ? accumulator : null;
+    }
+
+    /**
+     * Scores a position by building fresh accumulators from every piece,
+     * ignoring any attached to the game
+     *
+     * @param game the position to score
+     * @return the same score as {@link #evaluate(ChessGame)}
+     */
+    public int evaluateFromScratch(ChessGame game) {
+        NnueAccumulator accumulator = new NnueAccumulator(network, kernel);
+        ChessBoard board = game.getBoard();
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = board.pieceAt(sq);
+            if (piece != null) {
+                accumulator.add(piece.code(), sq);
+            }
+        }
+        return accumulator.evaluate(game.getTeamTurn());
+    }
+}
@@ -0,0 +1,86 @@
+package chess;
+
+/**
+ * The arithmetic behind {@link NnueEvaluator}, with a plain Java version and
+ * a SIMD version on the incubating Vector API. {@link #best()} picks the SIMD
+ * one when the JVM was started with {@code --add-modules jdk.incubator.vector}
+ * and falls back to plain Java otherwise. Both give identical results.
+ */
+abstract class NnueKernel {
+    /** Set this system property to true to always use the plain Java kernel */
+    static final String FORCE_SCALAR_PROPERTY = "chess.nnue.scalar";
+
+    private static final NnueKernel BEST = pick();
+
+    /** @return a short name for reports */
+    abstract String name();
+
+    /** Adds {@code length} weights starting at {@code offset} into the accumulator */
+    abstract void add(short[] accumulator, short[] weights, int offset, int length);
+
+    /** Subtracts {@code length} weights starting at {@code offset} from the accumulator */
+    abstract void subtract(short[] accumulator, short[] weights, int offset, int length);
+
+    /**
+     * @return sum over both accumulators of each value clipped to
+     * [0, {@link NnueNetwork#ACTIVATION_MAX}] times its output weight, the
+     * first accumulator using the first half of the weights
+     */
+    abstract int forward(short[] us, short[] them, short[] outputWeights, int length);
+
+    static NnueKernel best() {
+        return BEST;
+    }
+
+    static NnueKernel scalar() {
+        return Scalar.INSTANCE;
+    }
+
+    private static NnueKernel pick() {
+        if (Boolean.getBoolean(FORCE_SCALAR_PROPERTY)
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return Scalar.INSTANCE;
+        }
+        try {
+            return (NnueKernel) Class.forName("chess.VectorNnueKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return Scalar.INSTANCE;
+        }
+    }
+
+    static final class Scalar extends NnueKernel {
+        static final Scalar INSTANCE = new Scalar();
+
+        @Override
+        String name() {
+            return "scalar";
+        }
+
+        @Override
+        void add(short[] accumulator, short[] weights, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                accumulator[i] += weights[offset + i];
+            }
+        }
+
+        @Override
+        void subtract(short[] accumulator, short[] weights, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                accumulator[i] -= weights[offset + i];
+            }
+        }
+
+        @Override
+        int forward(short[] us, short[] them, short[] outputWeights, int length) {
+            int sum = 0;
+            for (int i = 0; i < length; i++) {
+                sum += clip(us[i]) * outputWeights[i] + clip(them[i]) * outputWeights[length + i];
+            }
+            return sum;
+        }
+
+        private static int clip(short value) {
+            return Math.min(Math.max(value, 0), NnueNetwork.ACTIVATION_MAX);
+        }
+    }
+}
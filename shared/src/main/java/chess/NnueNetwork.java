@@ -0,0 +1,147 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Weights of a small quantized neural network for evaluating positions.
+ * <p>
+ * The input layer has one feature per piece code and square (768), seen from
+ * each team's side: a team's own pieces come first and the board is flipped
+ * for black. Each side's features feed a hidden layer of int16 accumulators,
+ * which are clipped to [0, {@link #ACTIVATION_MAX}] and combined, side to move
+ * first, by one output neuron. Output weights stay within a byte so a clipped
+ * accumulator times a weight fits in 16 bits.
+ * <p>
+ * The file format is little-endian: magic {@code "NNUE"}, int32 version 1,
+ * int32 hidden size, then the feature weights (768 rows of hidden-size
+ * int16), the hidden biases (int16), the output weights (two halves of
+ * hidden-size int16) and the output bias (int32).
+ */
+public final class NnueNetwork {
+    static final int FEATURES = 12 * 64;
+    static final int ACTIVATION_MAX = 255;
+    static final int OUTPUT_SCALE = 64;
+    static final int EVAL_SCALE = 400;
+
+    private static final int MAGIC = 0x45554E4E;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+
+    final int hiddenSize;
+    final short[] featureWeights;
+    final short[] featureBiases;
+    final short[] outputWeights;
+    final int outputBias;
+
+    private NnueNetwork(int hiddenSize, short[] featureWeights, short[] featureBiases,
+                        short[] outputWeights, int outputBias) {
+        if (hiddenSize < 1) {
+            throw new IllegalArgumentException("Hidden layer needs at least one neuron");
+        }
+        for (short weight : outputWeights) {
+            if (weight < -127 || weight > 127) {
+                throw new IllegalArgumentException("Output weight " + weight + " is outside [-127, 127]");
+            }
+        }
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Reads a network from a file
+     *
+     * @param file weights in the format described above
+     * @return the network
+     * @throws IOException if the file cannot be read or is not a network
+     */
+    public static NnueNetwork load(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException(file + " is not a network file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported network version " + version);
+        }
+        int hidden = buffer.getInt();
+        if (hidden < 1 || buffer.remaining() != sizeInBytes(hidden) - HEADER_BYTES) {
+            throw new IOException(file + " has the wrong size for a hidden layer of " + hidden);
+        }
+        short[] featureWeights = new short[FEATURES * hidden];
+        short[] featureBiases = new short[hidden];
+        short[] outputWeights = new short[2 * hidden];
+        buffer.asShortBuffer().get(featureWeights).get(featureBiases).get(outputWeights);
+        buffer.position(buffer.position() + 2 * (featureWeights.length + featureBiases.length + outputWeights.length));
+        try {
+            return new NnueNetwork(hidden, featureWeights, featureBiases, outputWeights, buffer.getInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the network in the format {@link #load} reads
+     *
+     * @param file where to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(sizeInBytes(hiddenSize)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hiddenSize);
+        buffer.asShortBuffer().put(featureWeights).put(featureBiases).put(outputWeights);
+        buffer.position(buffer.position() + 2 * (featureWeights.length + featureBiases.length + outputWeights.length));
+        buffer.putInt(outputBias);
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * Builds a network with small random weights. It plays no better than
+     * chance but has the shape and cost of a trained one, for tests and
+     * benchmarks.
+     *
+     * @param hiddenSize neurons per side in the hidden layer
+     * @param seed       random seed
+     * @return the network
+     */
+    public static NnueNetwork random(int hiddenSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        short[] featureWeights = new short[FEATURES * hiddenSize];
+        short[] featureBiases = new short[hiddenSize];
+        short[] outputWeights = new short[2 * hiddenSize];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) random.nextInt(-32, 33);
+        }
+        for (int i = 0; i < hiddenSize; i++) {
+            featureBiases[i] = (short) random.nextInt(0, 128);
+        }
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (short) random.nextInt(-127, 128);
+        }
+        return new NnueNetwork(hiddenSize, featureWeights, featureBiases, outputWeights, random.nextInt(-1000, 1000));
+    }
+
+    /** @return neurons per side in the hidden layer */
+    public int hiddenSize() {
+        return hiddenSize;
+    }
+
+    /** @return the input feature for a piece code on a square as seen by a team */
+    static int feature(int code, int sq, ChessGame.TeamColor perspective) {
+        if (perspective == ChessGame.TeamColor.WHITE) {
+            return (code << 6) | sq;
+        }
+        return ((code < 6 ? code + 6 : code - 6) << 6) | (sq ^ 56);
+    }
+
+    private static int sizeInBytes(int hidden) {
+        return HEADER_BYTES + 2 * (FEATURES * hidden + hidden + 2 * hidden) + 4;
+    }
+}
@@ -0,0 +1,300 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions reachable from a game in a given number of moves.
+ * <p>
+ * Perft counts are known for many positions, so they check a move generator
+ * against every corner of the rules at once, and counting them is a plain
+ * measure of move generation speed. {@link #count} walks the tree with the
+ * packed move generator and make/unmake on the game's own board.
+ * {@link #countWithValidMoves} and {@link #countWithPieceMoves} walk it through
+ * the public {@link ChessGame#validMoves} and {@link ChessPiece#pieceMoves}
+ * instead, so changes to either can be checked against the same numbers.
+ * <p>
+ * Run as a program to print counts and speed:
+ * {@code Perft <depth> [fen] [--parallel] [--divide]}. Without a FEN it runs
+ * every position in {@link #REFERENCE_POSITIONS}.
+ */
+public final class Perft {
+
+    /**
+     * A position and its known perft counts
+     *
+     * @param fen   the position
+     * @param nodes nodes[i] is the count at depth i + 1
+     */
+    public record Reference(String fen, long... nodes) {
+    }
+
+    /**
+     * Standard perft positions with castling and en passant removed, since this
+     * game does not have those rules, and counts from an independent generator
+     */
+    public static final List<Reference> REFERENCE_POSITIONS = List.of(
+            new Reference(Fen.START, 20, 400, 8902, 197281),
+            new Reference("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2810, 43087),
+            new Reference("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w - - 0 1",
+                    6, 258, 9217, 404404),
+            new Reference("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w - - 1 8",
+                    43, 1452, 59922, 2018609),
+            new Reference("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594),
+            new Reference("8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 27, 273, 1329),
+            new Reference("4k3/1P6/8/8/8/8/6p1/4K3 w - - 0 1", 8, 59, 596, 5911)
+    );
+
+    private Perft() {
+    }
+
+    /**
+     * Counts leaf positions. The game is changed while counting and restored
+     * before returning, so it must not be used by other threads meanwhile.
+     *
+     * @param game  the starting position
+     * @param depth number of moves to look ahead
+     * @return the number of positions at that depth
+     */
+    public static long count(ChessGame game, int depth) {
+        return count(game.getBoard(), game.getTeamTurn(), depth, moveLists(depth));
+    }
+
+    /**
+     * Counts leaf positions with each root move searched as its own fork-join
+     * task on a copy of the game
+     *
+     * @param game  the starting position, which is not changed
+     * @param depth number of moves to look ahead
+     * @param pool  pool to run the tasks in
+     * @return the number of positions at that depth
+     */
+    public static long countParallel(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return count(game.snapshot().toGame(), depth);
+        }
+        return pool.invoke(new RootTask(game.snapshot(), depth));
+    }
+
+    /** Same as {@link #countParallel(ChessGame, int, ForkJoinPool)} on the common pool */
+    public static long countParallel(ChessGame game, int depth) {
+        return countParallel(game, depth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Counts leaf positions below each legal move
+     *
+     * @param game  the starting position, which is restored before returning
+     * @param depth number of moves to look ahead, at least 1
+     * @return count for each root move, keyed like "e2e4", in generation order
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor color = game.getTeamTurn();
+        MoveList[] lists = moveLists(depth);
+        MoveList moves = new MoveList();
+        LegalMoveGenerator.generate(board, color, moves);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            counts.put(Move.toString(moves.get(i)), count(board, MoveGenerator.opponent(color), depth - 1, lists));
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    /**
+     * Counts leaf positions using only {@link ChessGame#validMoves} and
+     * {@link ChessGame#makeMove(ChessMove)}, playing every move on a fresh copy
+     *
+     * @param game  the starting position, which is not changed
+     * @param depth number of moves to look ahead
+     * @return the number of positions at that depth
+     * @throws IllegalStateException if makeMove rejects a move validMoves returned
+     */
+    public static long countWithValidMoves(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        ChessGameSnapshot position = game.snapshot();
+        long nodes = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = position.pieceAt(sq);
+            if (piece == null || piece.getTeamColor() != position.getTeamTurn()) {
+                continue;
+            }
+            Collection<ChessMove> moves = game.validMoves(Bitboards.position(sq));
+            if (depth == 1) {
+                nodes += moves.size();
+                continue;
+            }
+            for (ChessMove move : moves) {
+                ChessGame next = position.toGame();
+                try {
+                    next.makeMove(move);
+                } catch (InvalidMoveException e) {
+                    throw new IllegalStateException("validMoves returned " + move + " but makeMove rejected it", e);
+                }
+                nodes += countWithValidMoves(next, depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts leaf positions using {@link ChessPiece#pieceMoves} for each piece
+     * and dropping moves that leave the mover in check, the way legal moves
+     * were found before the dedicated legal move generator
+     *
+     * @param game  the starting position, which is not changed
+     * @param depth number of moves to look ahead
+     * @return the number of positions at that depth
+     */
+    public static long countWithPieceMoves(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        ChessGameSnapshot position = game.snapshot();
+        ChessGame.TeamColor color = position.getTeamTurn();
+        long nodes = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = position.pieceAt(sq);
+            if (piece == null || piece.getTeamColor() != color) {
+                continue;
+            }
+            ChessPosition from = Bitboards.position(sq);
+            for (ChessMove move : piece.pieceMoves(game.getBoard(), from)) {
+                ChessGame next = position.toGame();
+                ChessBoard board = next.getBoard();
+                board.removePiece(from);
+                board.addPiece(move.getEndPosition(), move.getPromotionPiece() == null
+                        ? piece : new ChessPiece(color, move.getPromotionPiece()));
+                if (next.isInCheck(color)) {
+                    continue;
+                }
+                next.setTeamTurn(MoveGenerator.opponent(color));
+                nodes += countWithPieceMoves(next, depth - 1);
+            }
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft <depth> [fen] [--parallel] [--divide]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        boolean parallel = false;
+        boolean divide = false;
+        String fen = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--parallel" -> parallel = true;
+                case "--divide" -> divide = true;
+                default -> fen = fen == null ? args[i] : fen + " " + args[i];
+            }
+        }
+        List<String> fens = new ArrayList<>();
+        if (fen != null) {
+            fens.add(fen);
+        } else {
+            for (Reference reference : REFERENCE_POSITIONS) {
+                fens.add(reference.fen());
+            }
+        }
+        for (String position : fens) {
+            ChessGame game = ChessGame.fromFen(position);
+            System.out.println(position);
+            if (divide) {
+                long total = 0;
+                for (Map.Entry<String, Long> entry : divide(game, depth).entrySet()) {
+                    System.out.println("  " + entry.getKey() + ": " + entry.getValue());
+                    total += entry.getValue();
+                }
+                System.out.println("  total: " + total);
+                continue;
+            }
+            for (int d = 1; d <= depth; d++) {
+                long start = System.nanoTime();
+                long nodes = parallel ? countParallel(game, d) : count(game, d);
+                long nanos = Math.max(System.nanoTime() - start, 1);
+                System.out.printf("  depth %d: %d nodes in %.1f ms, %.0f nodes/s%n",
+                        d, nodes, nanos / 1e6, nodes * 1e9 / nanos);
+            }
+        }
+    }
+
+    private static long count(ChessBoard board, ChessGame.TeamColor color, int depth, MoveList[] lists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = lists[depth];
+        moves.clear();
+        LegalMoveGenerator.generate(board, color, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        ChessGame.TeamColor next = MoveGenerator.opponent(color);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(board, next, depth - 1, lists);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // One list per remaining depth, reused across siblings
+    private static MoveList[] moveLists(int depth) {
+        MoveList[] lists = new MoveList[Math.max(depth, 0) + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+
+    private static final class RootTask extends RecursiveTask<Long> {
+        private final ChessGameSnapshot position;
+        private final int depth;
+        private final int move;
+
+        RootTask(ChessGameSnapshot position, int depth) {
+            this(position, depth, Move.NONE);
+        }
+
+        private RootTask(ChessGameSnapshot position, int depth, int move) {
+            this.position = position;
+            this.depth = depth;
+            this.move = move;
+        }
+
+        @Override
+        protected Long compute() {
+            ChessGame game = position.toGame();
+            ChessBoard board = game.getBoard();
+            ChessGame.TeamColor color = game.getTeamTurn();
+            if (move != Move.NONE) {
+                board.makeMove(move);
+                return count(board, MoveGenerator.opponent(color), depth - 1, moveLists(depth));
+            }
+            MoveList moves = new MoveList();
+            LegalMoveGenerator.generate(board, color, moves);
+            List<RootTask> tasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                tasks.add(new RootTask(position, depth, moves.get(i)));
+            }
+            long nodes = 0;
+            for (RootTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package chess;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game read by {@link PgnReader}, before its moves are checked
+ *
+ * @param tags   tag pairs in the order they were read
+ * @param moves  main line moves in Standard Algebraic Notation
+ * @param result the game termination marker: "1-0", "0-1", "1/2-1/2" or "*"
+ */
+public record PgnGame(Map<String, String> tags, List<String> moves, String result) {
+
+    /**
+     * Plays the moves from the starting position, or from the FEN tag if the
+     * game has one. A game with a decided result is marked as over.
+     *
+     * @return the game after its last move
+     * @throws IllegalArgumentException if the FEN tag or a move is not valid
+     */
+    public ChessGame replay() {
+        String fen = tags.get("FEN");
+        ChessGame game = fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+        MoveList scratch = new MoveList();
+        for (int i = 0; i < moves.size(); i++) {
+            int move;
+            try {
+                move = San.parse(game.getBoard(), game.getTeamTurn(), moves.get(i), scratch);
+            } catch (IllegalArgumentException exception) {
+                throw new IllegalArgumentException("Ply " + (i + 1) + ": " + exception.getMessage(), exception);
+            }
+            game.makeMove(move);
+        }
+        game.setGameOver(!result.equals("*"));
+        return game;
+    }
+}
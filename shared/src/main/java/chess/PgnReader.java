@@ -0,0 +1,204 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads games in Portable Game Notation one at a time, so files of any size
+ * can be read in constant memory.
+ * <p>
+ * Only the main line is kept: comments, variations, numeric annotation
+ * glyphs and move numbers are skipped. Moves are not checked here; see
+ * {@link PgnGame#replay()}. Reading is lenient about layout, so a malformed
+ * tag is dropped and a game that stops without a result marker, at the end
+ * of the input or where the next game's tags start, gets "*". A reader is
+ * not thread safe.
+ */
+public final class PgnReader implements Closeable {
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final StringBuilder token = new StringBuilder(32);
+
+    /**
+     * @param in where to read; it is buffered by this reader
+     */
+    public PgnReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next game
+     *
+     * @return the game, or null if the input has no more games
+     * @throws IOException if reading fails
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        boolean started = false;
+        while (true) {
+            int c = peek();
+            if (c < 0) {
+                return started ? new PgnGame(tags, moves, "*") : null;
+            }
+            switch (c) {
+                case '[' -> {
+                    if (!moves.isEmpty()) {
+                        return new PgnGame(tags, moves, "*");
+                    }
+                    position++;
+                    readTag(tags);
+                    started = true;
+                }
+                case '{' -> skipPast('}');
+                case ';', '%' -> skipPast('\n');
+                case '(' -> skipVariation();
+                case ')', '}', ']' -> position++;
+                default -> {
+                    if (Character.isWhitespace(c)) {
+                        position++;
+                        continue;
+                    }
+                    started = true;
+                    readToken();
+                    if (isResult(token)) {
+                        return new PgnGame(tags, moves, token.toString());
+                    }
+                    int start = moveStart(token);
+                    if (start < token.length()) {
+                        moves.add(token.substring(start));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Reads a tag pair after its '[', keeping it only if it is well formed
+    private void readTag(Map<String, String> tags) throws IOException {
+        skipWhitespace();
+        token.setLength(0);
+        int c;
+        while ((c = peek()) >= 0 && !Character.isWhitespace(c) && c != '"' && c != ']') {
+            token.append((char) c);
+            position++;
+        }
+        String name = token.toString();
+        skipWhitespace();
+        if (peek() != '"') {
+            skipPast(']');
+            return;
+        }
+        position++;
+        token.setLength(0);
+        while ((c = read()) >= 0 && c != '"') {
+            if (c == '\\') {
+                c = read();
+                if (c < 0) {
+                    return;
+                }
+            }
+            token.append((char) c);
+        }
+        skipPast(']');
+        if (!name.isEmpty() && c == '"') {
+            tags.put(name, token.toString());
+        }
+    }
+
+    private void readToken() throws IOException {
+        token.setLength(0);
+        int c;
+        while ((c = peek()) >= 0 && !Character.isWhitespace(c) && "{}()[];".indexOf(c) < 0) {
+            token.append((char) c);
+            position++;
+        }
+    }
+
+    // Skips a variation, including nested variations and any comments in them
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            switch (c) {
+                case '(' -> depth++;
+                case ')' -> {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != end);
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) >= 0 && Character.isWhitespace(c)) {
+            position++;
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            position++;
+        }
+        return c;
+    }
+
+    private static boolean isResult(CharSequence token) {
+        return token.length() == 1 ? token.charAt(0) == '*'
+                : "1-0".contentEquals(token) || "0-1".contentEquals(token) || "1/2-1/2".contentEquals(token);
+    }
+
+    // Index where the move starts after any move number such as "12." or
+    // "12...", or the token's length if it holds no move, such as a "$1" glyph
+    private static int moveStart(CharSequence token) {
+        if (token.charAt(0) == '$') {
+            return token.length();
+        }
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        int dots = i;
+        while (dots < token.length() && token.charAt(dots) == '.') {
+            dots++;
+        }
+        return dots > i || i == token.length() ? dots : 0;
+    }
+}
@@ -0,0 +1,157 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games in Portable Game Notation, one after another, with moves in
+ * Standard Algebraic Notation (see {@link San}).
+ * <p>
+ * Each game is written as it is replayed, a token at a time, so memory use
+ * does not grow with the number or length of games. A game whose moves do
+ * not start from the standard position is written as its current position
+ * in a FEN tag with no moves, since the earlier position cannot be rebuilt.
+ * A writer is not thread safe.
+ */
+public final class PgnWriter implements Closeable, Flushable {
+    /** Longest movetext line, as the PGN standard recommends */
+    static final int LINE_LENGTH = 79;
+
+    // The Seven Tag Roster, less Result which is always taken from the game
+    private static final String[] ROSTER = {"Event", "Site", "Date", "Round", "White", "Black"};
+    private static final String[] ROSTER_DEFAULTS = {"?", "?", "????.??.??", "?", "?", "?"};
+    private static final long START_KEY = new ChessGame().positionKey();
+
+    private final Writer out;
+    private final ChessBoard board = new ChessBoard();
+    private final StringBuilder line = new StringBuilder(LINE_LENGTH + 16);
+    private final StringBuilder token = new StringBuilder(16);
+
+    /**
+     * @param out where to write; buffering it is up to the caller
+     */
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes one game followed by a blank line
+     *
+     * @param tags tag pairs such as "White" or "Event"; missing roster tags
+     *             are written as "?", and Result, SetUp and FEN are ignored
+     *             since they come from the game
+     * @param game the game to write
+     * @throws IOException if writing fails
+     */
+    public void write(Map<String, String> tags, ChessGame game) throws IOException {
+        MoveList moves = game.moveHistory();
+        boolean fromStart = moves.isEmpty() ? game.positionKey() == START_KEY : game.historyStartKey() == START_KEY;
+        String result = result(game);
+
+        for (int i = 0; i < ROSTER.length; i++) {
+            String value = tags.get(ROSTER[i]);
+            writeTag(ROSTER[i], value == null ? ROSTER_DEFAULTS[i] : value);
+        }
+        writeTag("Result", result);
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isRosterOrSetUp(tag.getKey()) && tag.getValue() != null) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        if (!fromStart) {
+            writeTag("SetUp", "1");
+            writeTag("FEN", game.toFen());
+        }
+        out.write('\n');
+
+        line.setLength(0);
+        if (fromStart) {
+            writeMoves(moves);
+        }
+        addToken(token.append(result));
+        out.append(line).write("\n\n");
+    }
+
+    /**
+     * @return the PGN result of a game as it stands: "1-0" or "0-1" after
+     * checkmate, "1/2-1/2" after stalemate or threefold repetition, and "*"
+     * otherwise, including resigned games since the winner is not recorded
+     */
+    public static String result(ChessGame game) {
+        GameStatus status = game.status();
+        if (status.isCheckmate()) {
+            return status.teamToMove() == ChessGame.TeamColor.WHITE ? "0-1" : "1-0";
+        }
+        if (status.isStalemate() || game.isThreefoldRepetition()) {
+            return "1/2-1/2";
+        }
+        return "*";
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeMoves(MoveList moves) throws IOException {
+        board.resetBoard();
+        ChessGame.TeamColor turn = ChessGame.TeamColor.WHITE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (turn == ChessGame.TeamColor.WHITE) {
+                addToken(token.append(i / 2 + 1).append('.'));
+            }
+            San.appendMove(board, move, token);
+            board.applyMove(move);
+            turn = MoveGenerator.opponent(turn);
+            San.appendCheck(board, turn, token);
+            addToken(token);
+        }
+    }
+
+    // Moves the token onto the current line, starting a new line if it would
+    // run past the limit, and clears the token
+    private void addToken(StringBuilder token) throws IOException {
+        if (!line.isEmpty()) {
+            if (line.length() + 1 + token.length() > LINE_LENGTH) {
+                out.append(line).write('\n');
+                line.setLength(0);
+            } else {
+                line.append(' ');
+            }
+        }
+        line.append(token);
+        token.setLength(0);
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        out.write("\"]\n");
+    }
+
+    private static boolean isRosterOrSetUp(String name) {
+        for (String roster : ROSTER) {
+            if (roster.equals(name)) {
+                return true;
+            }
+        }
+        return name.equals("Result") || name.equals("SetUp") || name.equals("FEN");
+    }
+}
@@ -0,0 +1,182 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * An opening book in Polyglot {@code .bin} format.
+ * <p>
+ * The file is a sorted array of 16-byte big-endian entries: position key,
+ * move, weight and a learn field that is ignored. It is memory-mapped rather
+ * than read, so opening a book costs no heap however large it is, and
+ * lookups binary-search the mapping. Lookups only use absolute reads, so one
+ * book may be shared by any number of threads without locking.
+ * <p>
+ * Book moves that are not legal in this engine, such as castling, are left
+ * out of lookups.
+ */
+public final class PolyglotBook {
+    private static final int ENTRY_BYTES = 16;
+    // Map at most 2^26 entries (1 GiB) per buffer so books of any size fit
+    private static final int CHUNK_SHIFT = 26;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    /**
+     * A move the book gives for a position
+     *
+     * @param move   the move
+     * @param weight how often to play it relative to the position's other moves
+     */
+    public record BookMove(ChessMove move, int weight) {
+    }
+
+    private final PolyglotKeys keys;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    private PolyglotBook(PolyglotKeys keys, MappedByteBuffer[] chunks, long size) {
+        this.keys = keys;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file. The file must not change while the book is in use.
+     *
+     * @param file the book
+     * @param keys the table the book's positions were hashed with
+     * @return the book
+     * @throws IOException if the file cannot be mapped or is not a whole number of entries
+     */
+    public static PolyglotBook open(Path file, PolyglotKeys keys) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % ENTRY_BYTES != 0) {
+                throw new IOException(file + " is not a Polyglot book: size " + bytes + " is not a multiple of "
+                        + ENTRY_BYTES);
+            }
+            long size = bytes / ENTRY_BYTES;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = ((long) i << CHUNK_SHIFT) * ENTRY_BYTES;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(bytes - start, (long) ENTRY_BYTES << CHUNK_SHIFT));
+            }
+            return new PolyglotBook(keys, chunks, size);
+        }
+    }
+
+    /** @return number of entries in the book */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @param game the position to look up
+     * @return the legal book moves for the position in file order, or an empty
+     * list if it is not in the book
+     */
+    public List<BookMove> moves(ChessGame game) {
+        long key = keys.key(game);
+        List<BookMove> moves = new ArrayList<>();
+        MoveList legal = null;
+        for (long i = lowerBound(key); i < size && key(i) == key; i++) {
+            if (legal == null) {
+                legal = new MoveList();
+                LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), legal);
+            }
+            int move = toMove(entryMove(i), legal);
+            if (move != Move.NONE) {
+                moves.add(new BookMove(Move.toChessMove(move), entryWeight(i)));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Picks a book move at random, each with probability proportional to its
+     * weight. Moves of weight zero are never picked.
+     *
+     * @param game   the position to look up
+     * @param random source of randomness
+     * @return the chosen move, or null if the book has no move for the position
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = moves(game);
+        long total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        long choice = random.nextLong(total);
+        for (BookMove move : moves) {
+            choice -= move.weight();
+            if (choice < 0) {
+                return move.move();
+            }
+        }
+        throw new AssertionError("weights changed while picking");
+    }
+
+    /** @return index of the first entry whose key is not below the given one */
+    private long lowerBound(long key) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long key(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].getLong(offset(index));
+    }
+
+    private int entryMove(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].getShort(offset(index) + 8) & 0xFFFF;
+    }
+
+    private int entryWeight(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].getShort(offset(index) + 10) & 0xFFFF;
+    }
+
+    private static int offset(long index) {
+        return (int) (index & CHUNK_MASK) * ENTRY_BYTES;
+    }
+
+    /**
+     * @return the legal move a Polyglot move stands for, or {@link Move#NONE}.
+     * Polyglot squares number a1 = 0 to h8 = 63 like {@link Bitboards}.
+     */
+    private static int toMove(int bookMove, MoveList legal) {
+        int to = bookMove & 0x3F;
+        int from = (bookMove >>> 6) & 0x3F;
+        ChessPiece.PieceType promotion = switch ((bookMove >>> 12) & 7) {
+            case 1 -> ChessPiece.PieceType.KNIGHT;
+            case 2 -> ChessPiece.PieceType.BISHOP;
+            case 3 -> ChessPiece.PieceType.ROOK;
+            case 4 -> ChessPiece.PieceType.QUEEN;
+            default -> null;
+        };
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.from(move) == from && Move.to(move) == to && Move.promotionType(move) == promotion) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+}
@@ -0,0 +1,129 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The 781 random numbers Polyglot books hash positions with, and the hashing
+ * itself.
+ * <p>
+ * The table is not bundled; it is read from a file of 781 big-endian
+ * unsigned 64-bit numbers in the standard order (768 piece-square keys, four
+ * castling keys, eight en passant keys and the white-to-move key), as in the
+ * Polyglot source. A table is checked against the well-known key of the
+ * starting position, so a truncated, reordered or byte-swapped one is
+ * rejected.
+ * <p>
+ * This engine has no castling or en passant. Castling rights are assumed
+ * whenever a king and rook stand on their starting squares, which is true of
+ * nearly every position in an opening book, and no en passant key is ever
+ * used.
+ */
+public final class PolyglotKeys {
+    /** Numbers in a complete table */
+    public static final int SIZE = 781;
+    /** Polyglot key of the starting position */
+    static final long START_KEY = 0x463B96181691FC9CL;
+
+    private static final int CASTLING = 768;
+    private static final int WHITE_TO_MOVE = 780;
+    private static final int[] KIND_BY_CODE = new int[12];
+
+    static {
+        // Polyglot orders pieces pawn, knight, bishop, rook, queen, king,
+        // each black then white
+        ChessPiece.PieceType[] order = {
+                ChessPiece.PieceType.PAWN, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING
+        };
+        for (int i = 0; i < order.length; i++) {
+            KIND_BY_CODE[ChessPiece.code(ChessGame.TeamColor.BLACK, order[i])] = 2 * i;
+            KIND_BY_CODE[ChessPiece.code(ChessGame.TeamColor.WHITE, order[i])] = 2 * i + 1;
+        }
+    }
+
+    private final long[] randoms;
+
+    PolyglotKeys(long[] randoms) {
+        if (randoms.length != SIZE) {
+            throw new IllegalArgumentException("Expected " + SIZE + " keys, got " + randoms.length);
+        }
+        this.randoms = randoms.clone();
+    }
+
+    /**
+     * @param randoms the standard table, in order
+     * @return keys hashing with the table
+     * @throws IllegalArgumentException if the table is not the standard one
+     */
+    public static PolyglotKeys of(long[] randoms) {
+        PolyglotKeys keys = new PolyglotKeys(randoms);
+        if (keys.key(new ChessGame()) != START_KEY) {
+            throw new IllegalArgumentException("Not the Polyglot random table: wrong key for the starting position");
+        }
+        return keys;
+    }
+
+    /**
+     * Reads the table from a file
+     *
+     * @param file 781 big-endian 64-bit numbers
+     * @return keys hashing with the table
+     * @throws IOException if the file cannot be read or is not the standard table
+     */
+    public static PolyglotKeys load(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != SIZE * Long.BYTES) {
+            throw new IOException(file + " is " + bytes.length + " bytes, expected " + SIZE * Long.BYTES);
+        }
+        long[] randoms = new long[SIZE];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(randoms);
+        try {
+            return of(randoms);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param game the position to hash
+     * @return the position's key as stored in Polyglot books
+     */
+    public long key(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long key = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = board.pieceAt(sq);
+            if (piece != null) {
+                key ^= randoms[(KIND_BY_CODE[piece.code()] << 6) | sq];
+            }
+        }
+        if (hasPiece(board, 4, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            if (hasPiece(board, 7, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)) {
+                key ^= randoms[CASTLING];
+            }
+            if (hasPiece(board, 0, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)) {
+                key ^= randoms[CASTLING + 1];
+            }
+        }
+        if (hasPiece(board, 60, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            if (hasPiece(board, 63, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK)) {
+                key ^= randoms[CASTLING + 2];
+            }
+            if (hasPiece(board, 56, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK)) {
+                key ^= randoms[CASTLING + 3];
+            }
+        }
+        if (game.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+            key ^= randoms[WHITE_TO_MOVE];
+        }
+        return key;
+    }
+
+    private static boolean hasPiece(ChessBoard board, int sq, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ChessPiece piece = board.pieceAt(sq);
+        return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
+    }
+}
@@ -0,0 +1,209 @@
+package chess;
+
+/**
+ * Standard Algebraic Notation for moves, such as Nbd2, exd5 or e8=Q#.
+ * <p>
+ * A move only names its start file or rank when another piece of the same
+ * kind could legally reach the same square. Those rivals are found from the
+ * attack tables for the destination square, dropping any that are pinned
+ * off the line to it, instead of generating every legal move. Reading a
+ * move works the same way in reverse: only the pieces that could reach the
+ * destination have their legal moves generated.
+ */
+public final class San {
+    private static final String LETTERS = "KQBNRP";
+
+    private San() {
+    }
+
+    /**
+     * Writes a move in Standard Algebraic Notation
+     *
+     * @param game position the move is played from; left unchanged
+     * @param move legal packed move, see {@link Move}
+     * @return the move, with a + or # suffix if it gives check or mate
+     */
+    public static String toString(ChessGame game, int move) {
+        StringBuilder out = new StringBuilder(8);
+        ChessBoard board = game.getBoard();
+        appendMove(board, move, out);
+        board.makeMove(move);
+        try {
+            appendCheck(board, MoveGenerator.opponent(board.pieceAt(Move.to(move)).getTeamColor()), out);
+        } finally {
+            board.unmakeMove();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads a move in Standard Algebraic Notation. Check and mate marks and
+     * annotations such as ! or ?! are ignored, as are a missing = before a
+     * promotion piece and a missing x on a capture.
+     *
+     * @param game position the move is played from
+     * @param san  the move, such as Nbd2 or e8=Q+
+     * @return the packed move, see {@link Move}
+     * @throws IllegalArgumentException if the text is not a legal move in
+     * the position, including castling, which this game does not have
+     */
+    public static int parse(ChessGame game, CharSequence san) {
+        return parse(game.getBoard(), game.getTeamTurn(), san, new MoveList());
+    }
+
+    /**
+     * @param scratch list used while matching candidate moves
+     */
+    static int parse(ChessBoard board, ChessGame.TeamColor color, CharSequence san, MoveList scratch) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end > 0 && (san.charAt(0) == 'O' || san.charAt(0) == '0')) {
+            throw new IllegalArgumentException("Castling is not allowed: " + san);
+        }
+        int start = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (end > 0 && LETTERS.indexOf(san.charAt(0)) >= 0 && san.charAt(0) != 'P') {
+            type = ChessPiece.PieceType.values()[LETTERS.indexOf(san.charAt(0))];
+            start = 1;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (type == ChessPiece.PieceType.PAWN && end > 0 && "QBNR".indexOf(san.charAt(end - 1)) >= 0) {
+            promotion = ChessPiece.PieceType.values()[LETTERS.indexOf(san.charAt(end - 1))];
+            end--;
+            if (end > 0 && san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end - start < 2 || !isSquare(san, end - 2)) {
+            throw new IllegalArgumentException("Not a move: " + san);
+        }
+        int to = (san.charAt(end - 2) - 'a') | (san.charAt(end - 1) - '1') << 3;
+
+        long candidates;
+        if (type == ChessPiece.PieceType.PAWN) {
+            long target = 1L << to;
+            long behind = color == ChessGame.TeamColor.WHITE
+                    ? target >>> 8 | target >>> 16 : target << 8 | target << 16;
+            candidates = board.pieces(color, type)
+                    & (behind | Bitboards.pawnAttacks(to, MoveGenerator.opponent(color)));
+        } else {
+            candidates = board.attackers(to, color, board.occupancy()) & board.pieces(color, type);
+        }
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                candidates &= Bitboards.FILE_A << (c - 'a');
+            } else if (c >= '1' && c <= '8') {
+                candidates &= 0xFFL << ((c - '1') << 3);
+            } else if (c != 'x' || i != end - 3) {
+                throw new IllegalArgumentException("Not a move: " + san);
+            }
+        }
+
+        int found = Move.NONE;
+        while (candidates != 0) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            scratch.clear();
+            LegalMoveGenerator.generate(board, from, scratch);
+            for (int i = 0; i < scratch.size(); i++) {
+                int move = scratch.get(i);
+                if (Move.to(move) == to && Move.promotionType(move) == promotion) {
+                    if (found != Move.NONE) {
+                        throw new IllegalArgumentException("Ambiguous move: " + san);
+                    }
+                    found = move;
+                }
+            }
+        }
+        if (found == Move.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return found;
+    }
+
+    /**
+     * Appends a move without its check suffix
+     *
+     * @param board position the move is played from
+     * @param move  legal packed move, see {@link Move}
+     */
+    static void appendMove(ChessBoard board, int move, StringBuilder out) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.pieceAt(from);
+        ChessPiece.PieceType type = piece.getPieceType();
+        if (type == ChessPiece.PieceType.PAWN) {
+            if (Move.isCapture(move)) {
+                out.append((char) ('a' + (from & 7))).append('x');
+            }
+            appendSquare(out, to);
+            if (Move.isPromotion(move)) {
+                out.append('=').append(LETTERS.charAt(Move.promotionType(move).ordinal()));
+            }
+            return;
+        }
+        out.append(LETTERS.charAt(type.ordinal()));
+        if (type != ChessPiece.PieceType.KING) {
+            long rivals = rivals(board, piece, from, to);
+            if (rivals != 0) {
+                if ((rivals & (Bitboards.FILE_A << (from & 7))) == 0) {
+                    out.append((char) ('a' + (from & 7)));
+                } else if ((rivals & (0xFFL << (from & 56))) == 0) {
+                    out.append((char) ('1' + (from >>> 3)));
+                } else {
+                    appendSquare(out, from);
+                }
+            }
+        }
+        if (Move.isCapture(move)) {
+            out.append('x');
+        }
+        appendSquare(out, to);
+    }
+
+    /**
+     * Appends + or # if the team to move is in check or checkmated
+     *
+     * @param board position after the move
+     * @param team  team to move after the move
+     */
+    static void appendCheck(ChessBoard board, ChessGame.TeamColor team, StringBuilder out) {
+        if (board.isSquareAttacked(board.kingSquare(team), MoveGenerator.opponent(team))) {
+            out.append(LegalMoveGenerator.hasAnyLegalMove(board, team) ? '+' : '#');
+        }
+    }
+
+    // Other pieces of the same kind that could legally move to the square.
+    // Since the move itself is legal, a rival that reaches the same square
+    // answers any single check just as well, so only pins can rule one out.
+    private static long rivals(ChessBoard board, ChessPiece piece, int from, int to) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long rivals = board.attackers(to, color, board.occupancy()) & board.pieces(piece.code()) & ~(1L << from);
+        if (rivals == 0) {
+            return 0;
+        }
+        int king = board.kingSquare(color);
+        long pinned = rivals & LegalMoveGenerator.pinnedPieces(board, color, king);
+        while (pinned != 0) {
+            int sq = Long.numberOfTrailingZeros(pinned);
+            pinned &= pinned - 1;
+            if ((Bitboards.line(king, sq) & (1L << to)) == 0) {
+                rivals &= ~(1L << sq);
+            }
+        }
+        return rivals;
+    }
+
+    private static boolean isSquare(CharSequence text, int index) {
+        char file = text.charAt(index);
+        char rank = text.charAt(index + 1);
+        return file >= 'a' && file <= 'h' && rank >= '1' && rank <= '8';
+    }
+
+    private static void appendSquare(StringBuilder out, int sq) {
+        out.append((char) ('a' + (sq & 7))).append((char) ('1' + (sq >>> 3)));
+    }
+}
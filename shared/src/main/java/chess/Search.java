@@ -0,0 +1,421 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Picks a move for the team to move, for computer opponents.
+ * <p>
+ * Iterative deepening principal variation search with a quiescence search
+ * over captures and promotions at the leaves, one ply of extension when in
+ * check, and results cached in a {@link TranspositionTable}. Moves are tried
+ * in order: the table's move, captures by most valuable victim then least
+ * valuable attacker, two killer moves per ply, then quiet moves by history
+ * score. Positions repeated on the current line or since the last capture or
+ * pawn move of the game score as a draw. Leaves are scored with
+ * {@link Evaluation}, or with a network when given an {@link NnueEvaluator}.
+ * <p>
+ * A search plays moves on the game's own board and takes them back before
+ * returning. All working storage is allocated with the searcher, so nothing
+ * is allocated per node. One searcher must only run one search at a time;
+ * many searchers, on many threads, may share one table.
+ */
+public final class Search {
+    /** Deepest line searched, counting quiescence and extensions */
+    static final int MAX_PLY = 64;
+    /** Score of being checkmated at the root; mate in n plies scores MATE - n */
+    static final int MATE = 30000;
+
+    private static final int INFINITY = 32000;
+    private static final int MAX_MOVES = 256;
+    private static final int CHECK_INTERVAL = 1023;
+
+    private static final int TT_MOVE_SCORE = 1 << 30;
+    private static final int TACTICAL_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final TranspositionTable table;
+    private final NnueEvaluator evaluator;
+    private final MoveList generated = new MoveList(MAX_MOVES);
+    private final int[][] moves = new int[MAX_PLY + 1][MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY + 1][MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[2][64 * 64];
+    // Keys of the game's reversible positions followed by the current line,
+    // and for each ply the first index in it that the position could repeat
+    private long[] keyStack = new long[2 * MAX_PLY];
+    private final int[] repeatableFrom = new int[MAX_PLY + 1];
+
+    private ChessBoard board;
+    private NnueAccumulator accumulator;
+    private int rootIndex;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean aborted;
+    private int rootBestMove;
+    private volatile boolean stopRequested;
+
+    /** Creates a searcher with its own 16 MB table */
+    public Search() {
+        this(new TranspositionTable(16));
+    }
+
+    /**
+     * @param table table to cache results in, which may be shared with other searchers
+     */
+    public Search(TranspositionTable table) {
+        this(table, null);
+    }
+
+    /**
+     * @param table     table to cache results in, which may be shared with other searchers
+     * @param evaluator network to score positions with, or null for {@link Evaluation}
+     */
+    public Search(TranspositionTable table, NnueEvaluator evaluator) {
+        this.table = table;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Searches the game's current position. The game must not be changed or
+     * read by other threads until this returns.
+     *
+     * @param game   the position to search, left as it was
+     * @param limits when to stop
+     * @return the best move found, from the deepest iteration that finished
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        if (evaluator == null || evaluator.accumulator(game) != null) {
+            return run(game, limits);
+        }
+        // Network accumulators stay on the game's board only while searching
+        evaluator.attach(game);
+        try {
+            return run(game, limits);
+        } finally {
+            evaluator.detach(game);
+        }
+    }
+
+    private SearchResult run(ChessGame game, SearchLimits limits) {
+        board = game.getBoard();
+        accumulator = evaluator == null ? null : evaluator.accumulator(game);
+        ChessGame.TeamColor side = game.getTeamTurn();
+        long[] previous = game.reversibleKeys();
+        if (keyStack.length < previous.length + MAX_PLY + 1) {
+            keyStack = new long[previous.length + MAX_PLY + 1];
+        }
+        System.arraycopy(previous, 0, keyStack, 0, previous.length);
+        rootIndex = previous.length - 1;
+        repeatableFrom[0] = 0;
+
+        nodes = 0;
+        nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        deadline = limits.millis() > 0 ? System.nanoTime() + limits.millis() * 1_000_000 : Long.MAX_VALUE;
+        aborted = false;
+        stopRequested = false;
+        rootBestMove = Move.NONE;
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, Move.NONE);
+        }
+        for (int[] sideHistory : history) {
+            Arrays.fill(sideHistory, 0);
+        }
+        table.newSearch();
+
+        int maxDepth = limits.depth() > 0 ? Math.min(limits.depth(), MAX_PLY) : MAX_PLY;
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        int completed = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int score = pvs(depth, 0, -INFINITY, INFINITY, side);
+            if (aborted) {
+                break;
+            }
+            bestMove = rootBestMove;
+            bestScore = score;
+            completed = depth;
+            if (bestMove == Move.NONE || Math.abs(score) >= MATE - MAX_PLY) {
+                break;
+            }
+        }
+        if (bestMove == Move.NONE && completed == 0) {
+            // Stopped before the first iteration finished
+            bestMove = rootBestMove;
+            if (bestMove == Move.NONE) {
+                generated.clear();
+                LegalMoveGenerator.generate(board, side, generated);
+                bestMove = generated.isEmpty() ? Move.NONE : generated.get(0);
+            }
+        }
+        board = null;
+        accumulator = null;
+        return new SearchResult(bestMove, bestScore, completed, nodes);
+    }
+
+    /** Asks a running search to stop soon and return its best move so far */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    private int pvs(int depth, int ply, int alpha, int beta, ChessGame.TeamColor side) {
+        long key = board.zobristKey() ^ (side == ChessGame.TeamColor.BLACK ? Zobrist.SIDE_TO_MOVE : 0L);
+        if (ply > 0) {
+            keyStack[rootIndex + ply] = key;
+            if (isRepetition(ply, key)) {
+                return 0;
+            }
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta, side);
+        }
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate(side);
+        }
+
+        int ttMove = Move.NONE;
+        long entry = table.probe(key);
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (ply > 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        boolean inCheck = inCheck(side);
+        if (inCheck) {
+            depth++;
+        }
+        int count = generate(ply, side, ttMove, false);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        ChessGame.TeamColor enemy = MoveGenerator.opponent(side);
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = selectMove(ply, i, count);
+            boolean irreversible = Move.isCapture(move)
+                    || board.pieceAt(Move.from(move)).getPieceType() == ChessPiece.PieceType.PAWN;
+            repeatableFrom[ply + 1] = irreversible ? rootIndex + ply + 1 : repeatableFrom[ply];
+
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -pvs(depth - 1, ply + 1, -beta, -alpha, enemy);
+            } else {
+                score = -pvs(depth - 1, ply + 1, -alpha - 1, -alpha, enemy);
+                if (score > alpha && score < beta) {
+                    score = -pvs(depth - 1, ply + 1, -beta, -alpha, enemy);
+                }
+            }
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                            rememberQuietCutoff(move, ply, depth, side);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    private int quiescence(int ply, int alpha, int beta, ChessGame.TeamColor side) {
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate(side);
+        }
+        boolean inCheck = inCheck(side);
+        int bestScore = -INFINITY;
+        if (!inCheck) {
+            bestScore = evaluate(side);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+        // In check every evasion is searched, otherwise only captures and promotions
+        int count = generate(ply, side, Move.NONE, !inCheck);
+        if (count == 0 && inCheck) {
+            return -MATE + ply;
+        }
+
+        ChessGame.TeamColor enemy = MoveGenerator.opponent(side);
+        for (int i = 0; i < count; i++) {
+            int move = selectMove(ply, i, count);
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha, enemy);
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    // Counts a node and returns true once a limit has been reached
+    private boolean countNode() {
+        if (aborted) {
+            return true;
+        }
+        nodes++;
+        if (nodes >= nodeLimit || ((nodes & CHECK_INTERVAL) == 0
+                && (stopRequested || System.nanoTime() >= deadline))) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private int evaluate(ChessGame.TeamColor side) {
+        return accumulator != null ? accumulator.evaluate(side) : Evaluation.evaluate(board, side);
+    }
+
+    private boolean isRepetition(int ply, long key) {
+        for (int i = rootIndex + ply - 2; i >= repeatableFrom[ply]; i -= 2) {
+            if (keyStack[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean inCheck(ChessGame.TeamColor side) {
+        int kingSquare = board.kingSquare(side);
+        return kingSquare >= 0 && board.isSquareAttacked(kingSquare, MoveGenerator.opponent(side));
+    }
+
+    // Fills this ply's move array with legal moves and their ordering scores
+    private int generate(int ply, ChessGame.TeamColor side, int ttMove, boolean tacticalOnly) {
+        generated.clear();
+        LegalMoveGenerator.generate(board, side, generated);
+        int[] plyMoves = moves[ply];
+        int[] plyScores = orderScores[ply];
+        int[] sideHistory = history[side.ordinal()];
+        int count = 0;
+        for (int i = 0; i < generated.size(); i++) {
+            int move = generated.get(i);
+            boolean tactical = Move.isCapture(move) || Move.isPromotion(move);
+            if (tacticalOnly && !tactical) {
+                continue;
+            }
+            int score;
+            if (move == ttMove) {
+                score = TT_MOVE_SCORE;
+            } else if (tactical) {
+                int gain = Move.isCapture(move)
+                        ? Evaluation.PIECE_VALUES[board.pieceAt(Move.to(move)).getPieceType().ordinal()] : 0;
+                if (Move.isPromotion(move)) {
+                    gain += Evaluation.PIECE_VALUES[Move.promotionType(move).ordinal()];
+                }
+                int attacker = Evaluation.PIECE_VALUES[board.pieceAt(Move.from(move)).getPieceType().ordinal()];
+                score = TACTICAL_SCORE + gain * 16 - attacker / 10;
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = sideHistory[move & 0xFFF];
+            }
+            plyMoves[count] = move;
+            plyScores[count] = score;
+            count++;
+        }
+        return count;
+    }
+
+    // Moves the best remaining move of this ply into place and returns it
+    private int selectMove(int ply, int index, int count) {
+        int[] plyMoves = moves[ply];
+        int[] plyScores = orderScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        int move = plyMoves[best];
+        plyMoves[best] = plyMoves[index];
+        plyMoves[index] = move;
+        int score = plyScores[best];
+        plyScores[best] = plyScores[index];
+        plyScores[index] = score;
+        return move;
+    }
+
+    private void rememberQuietCutoff(int move, int ply, int depth, ChessGame.TeamColor side) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] sideHistory = history[side.ordinal()];
+        sideHistory[move & 0xFFF] += depth * depth;
+        if (sideHistory[move & 0xFFF] > HISTORY_LIMIT) {
+            for (int i = 0; i < sideHistory.length; i++) {
+                sideHistory[i] >>= 1;
+            }
+        }
+    }
+
+    // Mate scores are stored relative to the node so they stay right when
+    // the same position is reached at another ply
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,33 @@
+package chess;
+
+/**
+ * When a {@link Search} should stop. A limit of 0 means no limit; the search
+ * stops at whichever set limit is reached first.
+ *
+ * @param depth  deepest iteration to search, in plies
+ * @param nodes  most positions to visit
+ * @param millis most wall-clock time to use
+ */
+public record SearchLimits(int depth, long nodes, long millis) {
+
+    public SearchLimits {
+        if (depth < 0 || nodes < 0 || millis < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+        if (depth == 0 && nodes == 0 && millis == 0) {
+            throw new IllegalArgumentException("A search needs at least one limit");
+        }
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(0, 0, millis);
+    }
+}
@@ -0,0 +1,23 @@
+package chess;
+
+/**
+ * Outcome of a {@link Search}
+ *
+ * @param move  best move found, packed as in {@link Move}, or {@link Move#NONE}
+ *              if the team to move has no legal moves
+ * @param score evaluation of the move in centipawns for the team to move
+ * @param depth deepest iteration that finished
+ * @param nodes positions visited
+ */
+public record SearchResult(int move, int score, int depth, long nodes) {
+
+    /** @return the best move, or null if there was no legal move */
+    public ChessMove bestMove() {
+        return move == Move.NONE ? null : Move.toChessMove(move);
+    }
+
+    /** @return True if the score is a forced checkmate for either team */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+}
@@ -0,0 +1,286 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Exact results for every position of one set of material, such as king and
+ * queen against king, built by {@link TablebaseGenerator}.
+ * <p>
+ * Each position takes one byte: 0 for a draw, {@link #INVALID} for a
+ * placement that cannot occur, and otherwise the distance to mate in plies
+ * plus one. An even distance means the team to move is mated, an odd one
+ * that it mates. Positions are indexed by the team to move, then the white
+ * king's square, then each other piece's square. Every position is stored
+ * with the white king on files a-d; the others are found by mirroring the
+ * board left to right, which changes nothing in a game without castling.
+ * <p>
+ * The file format is a 16-byte header (little-endian magic {@code "CTB1"},
+ * int32 version 1, int32 piece count and one piece code per piece, padded
+ * with 0xFF) followed by one byte per position. Tables are memory-mapped and
+ * only read with absolute gets, so threads may share them freely.
+ */
+public final class Tablebase {
+    /** Most pieces, kings included, a table may have */
+    public static final int MAX_PIECES = 4;
+    /** Stored for placements that cannot occur in a game */
+    static final int INVALID = 0xFF;
+    /** Stored for drawn positions */
+    static final int DRAW = 0;
+    /** Longest distance to mate that fits in a byte */
+    static final int MAX_DEPTH = 253;
+
+    private static final int MAGIC = 0x31425443;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    // Letters by piece type ordinal, and the order pieces are listed in
+    private static final String LETTERS = "KQBNRP";
+    private static final int[] LIST_ORDER = {0, 1, 3, 4, 2, 5};
+    private static final int[] VALUES = {0, 9, 3, 3, 5, 1};
+
+    final int[] codes;
+    private final ByteBuffer values;
+
+    Tablebase(int[] codes, ByteBuffer values) {
+        this.codes = codes;
+        this.values = values;
+    }
+
+    /**
+     * Maps a table file
+     *
+     * @param file a file written by {@link TablebaseGenerator}
+     * @return the table
+     * @throws IOException if the file cannot be mapped or is not a table
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file + " is not a tablebase file");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a tablebase file");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported tablebase version " + buffer.getInt(4));
+            }
+            int pieces = buffer.getInt(8);
+            if (pieces < 3 || pieces > MAX_PIECES) {
+                throw new IOException(file + " has " + pieces + " pieces");
+            }
+            int[] codes = new int[pieces];
+            for (int i = 0; i < pieces; i++) {
+                codes[i] = buffer.get(12 + i);
+            }
+            if (!Arrays.equals(codes, canonical(codes))) {
+                throw new IOException(file + " does not list its pieces in the expected order");
+            }
+            if (channel.size() != HEADER_BYTES + size(pieces)) {
+                throw new IOException(file + " has the wrong size for " + name(codes));
+            }
+            return new Tablebase(codes, buffer.slice(HEADER_BYTES, size(pieces)));
+        }
+    }
+
+    /** @return the material, such as "KQvK" */
+    public String name() {
+        return name(codes);
+    }
+
+    /** @return the stored byte for a position index */
+    int value(int index) {
+        return values.get(index) & 0xFF;
+    }
+
+    /**
+     * @param stm     0 if white is to move, 1 if black is
+     * @param squares square of each piece, in the order of {@link #codes}
+     * @return the position's index
+     */
+    int index(int stm, int[] squares) {
+        return index(codes, stm, squares);
+    }
+
+    void write(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(codes.length);
+        for (int i = 0; i < 4; i++) {
+            header.put((byte) (i < codes.length ? codes[i] : 0xFF));
+        }
+        header.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(header);
+            ByteBuffer body = values.duplicate();
+            body.clear();
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    /** @return number of positions in a table with that many pieces */
+    static int size(int pieces) {
+        return 2 * 32 << 6 * (pieces - 1);
+    }
+
+    /**
+     * Packs a position into an index, mirroring it so the white king is on
+     * files a-d and ordering identical pieces by square
+     */
+    static int index(int[] codes, int stm, int[] squares) {
+        int flip = (squares[0] & 7) >= 4 ? 7 : 0;
+        int king = squares[0] ^ flip;
+        int index = (stm << 5) | ((king >>> 3) << 2) | (king & 3);
+        for (int i = 1; i < codes.length; i++) {
+            int sq = squares[i] ^ flip;
+            if (i + 1 < codes.length && codes[i + 1] == codes[i] && (squares[i + 1] ^ flip) < sq) {
+                index = (index << 6) | (squares[i + 1] ^ flip);
+                index = (index << 6) | sq;
+                i++;
+            } else {
+                index = (index << 6) | sq;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Unpacks an index
+     *
+     * @param squares filled with each piece's square
+     * @return 0 if white is to move, 1 if black is
+     */
+    static int decode(int[] codes, int index, int[] squares) {
+        for (int i = codes.length - 1; i > 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        int king = index & 31;
+        squares[0] = ((king >>> 2) << 3) | (king & 3);
+        return index >>> 5;
+    }
+
+    /**
+     * Reads material such as "KQvK" or "KPvKR", white's pieces first
+     *
+     * @return the piece codes, with the stronger side as white
+     * @throws IllegalArgumentException if the name is not valid material
+     */
+    static int[] parse(String name) {
+        String[] sides = name.split("v", -1);
+        if (sides.length != 2) {
+            throw new IllegalArgumentException("Material needs one 'v' between the sides: " + name);
+        }
+        int pieces = sides[0].length() + sides[1].length();
+        if (pieces < 3 || pieces > MAX_PIECES) {
+            throw new IllegalArgumentException("Material needs 3 to " + MAX_PIECES + " pieces: " + name);
+        }
+        int[] codes = new int[pieces];
+        int count = 0;
+        for (int side = 0; side < 2; side++) {
+            String letters = sides[side];
+            if (letters.isEmpty()) {
+                throw new IllegalArgumentException("Each side needs one king, listed first: " + name);
+            }
+            for (int i = 0; i < letters.length(); i++) {
+                int type = LETTERS.indexOf(letters.charAt(i));
+                if (type < 0 || (type == 0) != (i == 0)) {
+                    throw new IllegalArgumentException("Each side needs one king, listed first: " + name);
+                }
+                codes[count++] = side * 6 + type;
+            }
+        }
+        return canonical(codes);
+    }
+
+    /** @return the material's name, such as "KRvKN" */
+    static String name(int[] codes) {
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for (int code : codes) {
+            (code < 6 ? white : black).append(LETTERS.charAt(code % 6));
+        }
+        return white + "v" + black;
+    }
+
+    /**
+     * @return the same material ordered as tables list it: white king, black
+     * king, white's other pieces, black's other pieces, with colors swapped
+     * if that makes white the stronger side
+     */
+    static int[] canonical(int[] codes) {
+        int[] white = otherPieces(codes, 0);
+        int[] black = otherPieces(codes, 1);
+        if (compareSides(black, white) > 0) {
+            int[] swap = white;
+            white = black;
+            black = swap;
+        }
+        int[] sorted = new int[2 + white.length + black.length];
+        sorted[1] = 6;
+        for (int i = 0; i < white.length; i++) {
+            sorted[2 + i] = white[i];
+        }
+        for (int i = 0; i < black.length; i++) {
+            sorted[2 + white.length + i] = 6 + black[i];
+        }
+        return sorted;
+    }
+
+    /** @return material key: how many of each piece code, four bits per code */
+    static long materialKey(int[] codes) {
+        long key = 0;
+        for (int code : codes) {
+            key += 1L << (code << 2);
+        }
+        return key;
+    }
+
+    /** @return the material key with colors swapped */
+    static long flipColors(long materialKey) {
+        return (materialKey >>> 24) | ((materialKey & 0xFFFFFFL) << 24);
+    }
+
+    // Types of a team's pieces other than the king, in list order
+    private static int[] otherPieces(int[] codes, int color) {
+        int[] types = new int[codes.length];
+        int count = 0;
+        for (int order = 1; order < LIST_ORDER.length; order++) {
+            for (int code : codes) {
+                if (code / 6 == color && LIST_ORDER[code % 6] == order) {
+                    types[count++] = code % 6;
+                }
+            }
+        }
+        return Arrays.copyOf(types, count);
+    }
+
+    // Compares sides by total piece value, then piece by piece in list order
+    private static int compareSides(int[] a, int[] b) {
+        int aValue = 0;
+        int bValue = 0;
+        for (int type : a) {
+            aValue += VALUES[type];
+        }
+        for (int type : b) {
+            bValue += VALUES[type];
+        }
+        if (aValue != bValue) {
+            return Integer.compare(aValue, bValue);
+        }
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            if (a[i] != b[i]) {
+                return Integer.compare(LIST_ORDER[b[i]], LIST_ORDER[a[i]]);
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
@@ -0,0 +1,422 @@
+package chess;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds {@link Tablebase} files by retrograde analysis.
+ * <p>
+ * A first pass visits every placement of the material, marks the ones that
+ * cannot occur, scores checkmates, stalemates and every capture or
+ * promotion from the tables of the smaller material they lead to, and counts
+ * each position's other legal moves. Each later pass takes the positions
+ * decided at one distance to mate and steps their pieces backwards to find
+ * the positions that lead to them: a move into a lost position wins, and a
+ * position whose moves all lead to won positions is lost. Positions never
+ * decided are draws. Legal moves come from the same generator games use, and
+ * passes run in parallel on a fork-join pool.
+ * <p>
+ * Tables for captures and promotions are generated first, or opened when
+ * the directory already has them. Run as a program:
+ * {@code TablebaseGenerator <directory> (<material>... | --all)}, where
+ * material is written like "KQvK" or "KRvKP" and {@code --all} generates
+ * every table with up to {@link Tablebase#MAX_PIECES} pieces.
+ */
+public final class TablebaseGenerator {
+    // Positions per fork-join task
+    private static final int CHUNK = 1 << 14;
+    // Set in a move count when some move leads to a draw, so the position cannot be lost
+    private static final int CANNOT_LOSE = 0x80;
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final String PIECE_LETTERS = "QRBNP";
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    private final Tablebases tablebases = new Tablebases();
+
+    /**
+     * @param directory where tables are written and looked for
+     */
+    public TablebaseGenerator(Path directory) {
+        this(directory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param directory where tables are written and looked for
+     * @param pool      pool to run the passes in
+     */
+    public TablebaseGenerator(Path directory, ForkJoinPool pool) {
+        this.directory = directory;
+        this.pool = pool;
+    }
+
+    /**
+     * Generates a table and the tables it depends on, skipping any already in
+     * the directory
+     *
+     * @param material the pieces, such as "KQvK", in either color order
+     * @return the table
+     * @throws IOException              if a table cannot be read or written
+     * @throws IllegalArgumentException if the material is not valid
+     */
+    public Tablebase generate(String material) throws IOException {
+        return generate(Tablebase.parse(material));
+    }
+
+    /** @return the name of every material with 3 up to {@link Tablebase#MAX_PIECES} pieces */
+    public static List<String> allMaterials() {
+        Map<Long, String> materials = new LinkedHashMap<>();
+        addMaterials("K", "K", 2, materials);
+        return new ArrayList<>(materials.values());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: TablebaseGenerator <directory> (<material>... | --all)");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        List<String> materials = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--all")) {
+                materials.addAll(allMaterials());
+            } else {
+                materials.add(args[i]);
+            }
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(directory);
+        for (String material : materials) {
+            long start = System.nanoTime();
+            Tablebase table = generator.generate(material);
+            System.out.printf("%s in %.1f s%n", table.name(), (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private static void addMaterials(String white, String black, int piecesLeft, Map<Long, String> materials) {
+        if (white.length() + black.length() > 2) {
+            int[] codes = Tablebase.parse(white + "v" + black);
+            materials.putIfAbsent(Tablebase.materialKey(codes), Tablebase.name(codes));
+        }
+        if (piecesLeft == 0) {
+            return;
+        }
+        for (int i = 0; i < PIECE_LETTERS.length(); i++) {
+            addMaterials(white + PIECE_LETTERS.charAt(i), black, piecesLeft - 1, materials);
+            addMaterials(white, black + PIECE_LETTERS.charAt(i), piecesLeft - 1, materials);
+        }
+    }
+
+    private Tablebase generate(int[] codes) throws IOException {
+        Tablebase table = tablebases.get(codes);
+        if (table != null) {
+            return table;
+        }
+        Path file = directory.resolve(Tablebase.name(codes) + Tablebases.SUFFIX);
+        if (Files.exists(file)) {
+            table = Tablebase.open(file);
+        } else {
+            for (int[] child : children(codes)) {
+                generate(child);
+            }
+            table = new Build(codes).run();
+            table.write(file);
+        }
+        tablebases.add(table);
+        return table;
+    }
+
+    /** @return the materials a capture or promotion leads to, other than bare kings */
+    private static List<int[]> children(int[] codes) {
+        Map<Long, int[]> children = new LinkedHashMap<>();
+        for (int i = 2; i < codes.length; i++) {
+            if (codes.length > 3) {
+                int[] captured = new int[codes.length - 1];
+                for (int j = 0, k = 0; j < codes.length; j++) {
+                    if (j != i) {
+                        captured[k++] = codes[j];
+                    }
+                }
+                captured = Tablebase.canonical(captured);
+                children.putIfAbsent(Tablebase.materialKey(captured), captured);
+            }
+            if (codes[i] % 6 == ChessPiece.PieceType.PAWN.ordinal()) {
+                for (ChessPiece.PieceType type : new ChessPiece.PieceType[]{ChessPiece.PieceType.QUEEN,
+                        ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT}) {
+                    int[] promoted = codes.clone();
+                    promoted[i] = codes[i] - ChessPiece.PieceType.PAWN.ordinal() + type.ordinal();
+                    promoted = Tablebase.canonical(promoted);
+                    children.putIfAbsent(Tablebase.materialKey(promoted), promoted);
+                }
+            }
+        }
+        return new ArrayList<>(children.values());
+    }
+
+    /** Working arrays for generating one table */
+    private final class Build {
+        final int[] codes;
+        final String name;
+        final byte[] values;
+        // Legal moves not yet known to lose, for moves that stay in this table
+        final byte[] counts;
+        // Longest loss through a capture or promotion, in plies
+        final byte[] exitDepths;
+        final AtomicInteger deepest = new AtomicInteger();
+
+        Build(int[] codes) {
+            this.codes = codes;
+            this.name = Tablebase.name(codes);
+            int size = Tablebase.size(codes.length);
+            values = new byte[size];
+            counts = new byte[size];
+            exitDepths = new byte[size];
+        }
+
+        Tablebase run() {
+            pool.invoke(new Pass(this, 0, values.length, -1));
+            for (int depth = 0; depth <= deepest.get(); depth++) {
+                pool.invoke(new Pass(this, 0, values.length, depth));
+            }
+            return new Tablebase(codes, ByteBuffer.wrap(values));
+        }
+
+        void decide(int index, int depth) {
+            if (depth > Tablebase.MAX_DEPTH) {
+                throw new IllegalStateException(name + " has a mate longer than " + Tablebase.MAX_DEPTH + " plies");
+            }
+            BYTES.setVolatile(values, index, (byte) (depth + 1));
+            deepest.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    /** A range of positions for one pass; depth -1 is the first pass */
+    private final class Pass extends RecursiveAction {
+        private final Build build;
+        private final int start;
+        private final int end;
+        private final int depth;
+
+        Pass(Build build, int start, int end, int depth) {
+            this.build = build;
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > CHUNK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new Pass(build, start, middle, depth), new Pass(build, middle, end, depth));
+                return;
+            }
+            Worker worker = new Worker(build);
+            for (int index = start; index < end; index++) {
+                if (depth < 0) {
+                    worker.score(index);
+                } else if ((build.values[index] & 0xFF) == depth + 1) {
+                    worker.stepBack(index, depth);
+                }
+            }
+        }
+    }
+
+    /** Scratch state for one thread */
+    private final class Worker {
+        private final Build build;
+        private final ChessBoard board = new ChessBoard();
+        private final MoveList moves = new MoveList();
+        private final int[] squares = new int[Tablebase.MAX_PIECES];
+        private final int[] previous = new int[Tablebase.MAX_PIECES];
+        private final long[] packed = new long[4];
+
+        Worker(Build build) {
+            this.build = build;
+        }
+
+        /** First pass: validity, mates, stalemates, captures and promotions */
+        void score(int index) {
+            int[] codes = build.codes;
+            int stm = Tablebase.decode(codes, index, squares);
+            if (!placeable()) {
+                build.values[index] = (byte) Tablebase.INVALID;
+                return;
+            }
+            setUp();
+            ChessGame.TeamColor side = stm == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            ChessGame.TeamColor enemy = MoveGenerator.opponent(side);
+            if (board.isSquareAttacked(board.kingSquare(enemy), side)) {
+                build.values[index] = (byte) Tablebase.INVALID;
+                return;
+            }
+            moves.clear();
+            LegalMoveGenerator.generate(board, side, moves);
+            if (moves.isEmpty()) {
+                if (board.isSquareAttacked(board.kingSquare(side), enemy)) {
+                    build.decide(index, 0);
+                }
+                return;
+            }
+            int quiet = 0;
+            int win = Integer.MAX_VALUE;
+            int loss = 0;
+            boolean draw = false;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                    quiet++;
+                    continue;
+                }
+                board.makeMove(move);
+                int value = tablebases.value(board, enemy);
+                board.unmakeMove();
+                if (value < 0) {
+                    throw new IllegalStateException("No table for a capture or promotion from " + build.name);
+                }
+                if (value == Tablebase.DRAW) {
+                    draw = true;
+                } else if (((value - 1) & 1) == 0) {
+                    // Stored value is the child's distance + 1, which is ours
+                    win = Math.min(win, value);
+                } else {
+                    loss = Math.max(loss, value);
+                }
+            }
+            build.counts[index] = (byte) (quiet | (draw ? CANNOT_LOSE : 0));
+            if (win != Integer.MAX_VALUE) {
+                build.decide(index, win);
+            } else {
+                build.exitDepths[index] = (byte) loss;
+                if (quiet == 0 && !draw) {
+                    build.decide(index, loss);
+                }
+            }
+        }
+
+        /** Later passes: finds the positions one move before a decided one */
+        void stepBack(int index, int depth) {
+            int[] codes = build.codes;
+            int stm = Tablebase.decode(codes, index, squares);
+            int mover = 1 - stm;
+            long occupied = 0;
+            for (int i = 0; i < codes.length; i++) {
+                occupied |= 1L << squares[i];
+            }
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] / 6 != mover) {
+                    continue;
+                }
+                long targets = unmoveTargets(codes[i], squares[i], occupied);
+                while (targets != 0) {
+                    System.arraycopy(squares, 0, previous, 0, codes.length);
+                    previous[i] = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    int before = Tablebase.index(codes, mover, previous);
+                    if ((depth & 1) == 0) {
+                        winBefore(before, depth + 1);
+                    } else {
+                        lossBefore(before, depth + 1);
+                    }
+                }
+            }
+        }
+
+        private void winBefore(int index, int depth) {
+            if (depth > Tablebase.MAX_DEPTH) {
+                throw new IllegalStateException(build.name + " has a mate longer than " + Tablebase.MAX_DEPTH + " plies");
+            }
+            while (true) {
+                int current = (byte) BYTES.getVolatile(build.values, index) & 0xFF;
+                if (current == Tablebase.INVALID || (current != Tablebase.DRAW && current <= depth + 1)) {
+                    return;
+                }
+                if (BYTES.compareAndSet(build.values, index, (byte) current, (byte) (depth + 1))) {
+                    build.deepest.accumulateAndGet(depth, Math::max);
+                    return;
+                }
+            }
+        }
+
+        private void lossBefore(int index, int depth) {
+            if (((byte) BYTES.getVolatile(build.values, index) & 0xFF) != Tablebase.DRAW) {
+                return;
+            }
+            // Decrements the count with a compare-and-set loop, so exactly one
+            // thread sees it go from 1 to 0
+            byte count;
+            do {
+                count = (byte) BYTES.getVolatile(build.counts, index);
+            } while (!BYTES.compareAndSet(build.counts, index, count, (byte) (count - 1)));
+            // Only a count without CANNOT_LOSE can go from 1 to 0
+            if (count == 1) {
+                build.decide(index, Math.max(depth, build.exitDepths[index] & 0xFF));
+            }
+        }
+
+        // Squares the piece could have moved from without capturing or promoting
+        private long unmoveTargets(int code, int sq, long occupied) {
+            long empty = ~occupied;
+            return switch (ChessPiece.PieceType.values()[code % 6]) {
+                case KING -> Bitboards.kingAttacks(sq) & empty;
+                case QUEEN -> Bitboards.queenAttacks(sq, occupied) & empty;
+                case BISHOP -> Bitboards.bishopAttacks(sq, occupied) & empty;
+                case KNIGHT -> Bitboards.knightAttacks(sq) & empty;
+                case ROOK -> Bitboards.rookAttacks(sq, occupied) & empty;
+                case PAWN -> {
+                    boolean white = code < 6;
+                    int step = white ? -8 : 8;
+                    int rank = sq >>> 3;
+                    long targets = 0;
+                    if ((white ? rank >= 2 : rank <= 5) && (empty & (1L << (sq + step))) != 0) {
+                        targets |= 1L << (sq + step);
+                        if (rank == (white ? 3 : 4) && (empty & (1L << (sq + 2 * step))) != 0) {
+                            targets |= 1L << (sq + 2 * step);
+                        }
+                    }
+                    yield targets;
+                }
+            };
+        }
+
+        private boolean placeable() {
+            int[] codes = build.codes;
+            long occupied = 0;
+            for (int i = 0; i < codes.length; i++) {
+                int sq = squares[i];
+                if ((occupied & (1L << sq)) != 0) {
+                    return false;
+                }
+                occupied |= 1L << sq;
+                if (codes[i] % 6 == ChessPiece.PieceType.PAWN.ordinal() && (sq < 8 || sq >= 56)) {
+                    return false;
+                }
+                // Identical pieces are stored in square order only
+                if (i > 0 && codes[i] == codes[i - 1] && squares[i - 1] > sq) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void setUp() {
+            packed[0] = packed[1] = packed[2] = packed[3] = 0;
+            for (int i = 0; i < build.codes.length; i++) {
+                int sq = squares[i];
+                packed[sq >>> 4] |= (long) (build.codes[i] + 1) << ((sq & 15) << 2);
+            }
+            board.setPackedSquares(packed);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package chess;
+
+/**
+ * The exact result of a position found in a {@link Tablebases} directory,
+ * for the team to move
+ *
+ * @param outcome     what perfect play leads to
+ * @param pliesToMate moves by both teams until checkmate with perfect play,
+ *                    the winner mating as fast and the loser resisting as long
+ *                    as possible; 0 for a draw
+ */
+public record TablebaseResult(Outcome outcome, int pliesToMate) {
+
+    public enum Outcome {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    /** The result of any drawn position */
+    public static final TablebaseResult DRAW = new TablebaseResult(Outcome.DRAW, 0);
+
+    /** @return the result a stored table byte stands for */
+    static TablebaseResult of(int value) {
+        if (value == Tablebase.DRAW) {
+            return DRAW;
+        }
+        int plies = value - 1;
+        return new TablebaseResult((plies & 1) == 0 ? Outcome.LOSS : Outcome.WIN, plies);
+    }
+}
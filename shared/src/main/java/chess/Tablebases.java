@@ -0,0 +1,120 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A set of {@link Tablebase} tables, looked up by the material on the board.
+ * A table covers its material with either team as the stronger side. Once
+ * opened, probes only read the mapped tables, so one instance may be shared
+ * by any number of threads.
+ */
+public final class Tablebases {
+    /** File name suffix of table files */
+    public static final String SUFFIX = ".tb";
+
+    private final Map<Long, Tablebase> tables = new HashMap<>();
+
+    Tablebases() {
+    }
+
+    /**
+     * Maps every table file in a directory
+     *
+     * @param directory directory holding files written by {@link TablebaseGenerator}
+     * @return the tables
+     * @throws IOException if the directory or a table cannot be read
+     */
+    public static Tablebases open(Path directory) throws IOException {
+        Tablebases tablebases = new Tablebases();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                tablebases.add(Tablebase.open(file));
+            }
+        }
+        return tablebases;
+    }
+
+    /** @return the names of the tables, such as "KQvK" */
+    public Set<String> names() {
+        Set<String> names = new TreeSet<>();
+        for (Tablebase table : tables.values()) {
+            names.add(table.name());
+        }
+        return names;
+    }
+
+    /**
+     * Looks up the game's position
+     *
+     * @param game the position
+     * @return the exact result for the team to move, or null if no table
+     * covers the material on the board or the position cannot occur
+     */
+    public TablebaseResult probe(ChessGame game) {
+        int value = value(game.getBoard(), game.getTeamTurn());
+        return value < 0 || value == Tablebase.INVALID ? null : TablebaseResult.of(value);
+    }
+
+    void add(Tablebase table) {
+        tables.put(Tablebase.materialKey(table.codes), table);
+    }
+
+    Tablebase get(int[] codes) {
+        return tables.get(Tablebase.materialKey(codes));
+    }
+
+    /**
+     * @return the stored byte for the position, {@link Tablebase#DRAW} for
+     * bare kings, or -1 if no table covers it
+     */
+    int value(ChessBoard board, ChessGame.TeamColor teamToMove) {
+        int whiteCount = board.pieceCount(ChessGame.TeamColor.WHITE);
+        int count = whiteCount + board.pieceCount(ChessGame.TeamColor.BLACK);
+        if (count == 2) {
+            return Tablebase.DRAW;
+        }
+        if (count > Tablebase.MAX_PIECES) {
+            return -1;
+        }
+        int[] codes = new int[count];
+        int[] squares = new int[count];
+        long key = 0;
+        for (int i = 0; i < count; i++) {
+            squares[i] = i < whiteCount ? board.pieceSquare(ChessGame.TeamColor.WHITE, i)
+                    : board.pieceSquare(ChessGame.TeamColor.BLACK, i - whiteCount);
+            codes[i] = board.pieceAt(squares[i]).code();
+            key += 1L << (codes[i] << 2);
+        }
+
+        boolean flipped = false;
+        Tablebase table = tables.get(key);
+        if (table == null) {
+            table = tables.get(Tablebase.flipColors(key));
+            flipped = true;
+            if (table == null) {
+                return -1;
+            }
+        }
+        // Put each piece in the slot the table keeps for its piece code
+        int[] slots = new int[count];
+        boolean[] filled = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            int code = flipped ? (codes[i] + 6) % 12 : codes[i];
+            int slot = 0;
+            while (filled[slot] || table.codes[slot] != code) {
+                slot++;
+            }
+            filled[slot] = true;
+            slots[slot] = flipped ? squares[i] ^ 56 : squares[i];
+        }
+        int stm = (teamToMove == ChessGame.TeamColor.WHITE) != flipped ? 0 : 1;
+        return table.value(table.index(stm, slots));
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by position key.
+ * <p>
+ * The table holds a power-of-two number of entries, each two longs: the
+ * packed result and the position key XORed with it. A probe only accepts an
+ * entry whose two halves agree, so a table can be shared by searches running
+ * on several threads without locking; an entry torn by a concurrent write is
+ * just a miss.
+ */
+public final class TranspositionTable {
+    static final int EXACT = 0;
+    static final int LOWER = 1;
+    static final int UPPER = 2;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int generation;
+
+    /**
+     * @param megabytes memory to use, rounded down to a power-of-two entry count
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table needs at least 1 MB");
+        }
+        int entries = Integer.highestOneBit((int) Math.min((long) megabytes * 1024 * 1024 / ENTRY_BYTES, 1 << 30));
+        keys = new long[entries];
+        data = new long[entries];
+        mask = entries - 1;
+    }
+
+    /** @return number of entries the table holds */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /** Forgets every stored result */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /** Marks the start of a new search so older entries are replaced first */
+    void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * @return the packed entry for the key, or 0 if there is none
+     */
+    long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        return (keys[index] ^ entry) == key ? entry : 0L;
+    }
+
+    /**
+     * Stores a result, replacing the current entry unless it is from this
+     * search, for another position and was searched deeper
+     */
+    void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long old = data[index];
+        boolean samePosition = (keys[index] ^ old) == key;
+        if (!samePosition && old != 0 && generation(old) == generation && depth(old) > depth) {
+            return;
+        }
+        if (move == Move.NONE && samePosition) {
+            move = move(old);
+        }
+        long entry = (move & 0xFFFFL)
+                | (long) (score & 0xFFFF) << 16
+                | (long) (depth & 0xFF) << 32
+                | (long) bound << 40
+                | (long) generation << 42
+                | 1L << 50; // so a stored entry is never 0
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    static int move(long entry) {
+        return (int) entry & 0xFFFF;
+    }
+
+    static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 42) & 0xFF;
+    }
+}
@@ -0,0 +1,75 @@
+package chess;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link NnueKernel} on the Vector API, using the widest vectors the CPU
+ * supports. Only loaded by {@link NnueKernel#best()} when the incubator module
+ * is present, so nothing else may refer to this class directly.
+ */
+final class VectorNnueKernel extends NnueKernel {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final short ACTIVATION_MAX = (short) NnueNetwork.ACTIVATION_MAX;
+
+    @Override
+    String name() {
+        return "vector-" + SHORTS.vectorBitSize();
+    }
+
+    @Override
+    void add(short[] accumulator, short[] weights, int offset, int length) {
+        int bound = SHORTS.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    void subtract(short[] accumulator, short[] weights, int offset, int length) {
+        int bound = SHORTS.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    int forward(short[] us, short[] them, short[] outputWeights, int length) {
+        IntVector sum = IntVector.zero(INTS);
+        int bound = SHORTS.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            // Clipped values times byte-sized weights fit in 16 bits; widen
+            // both halves of the products before adding them up
+            ShortVector products = ShortVector.fromArray(SHORTS, us, i).max((short) 0).min(ACTIVATION_MAX)
+                    .mul(ShortVector.fromArray(SHORTS, outputWeights, i));
+            ShortVector theirProducts = ShortVector.fromArray(SHORTS, them, i).max((short) 0).min(ACTIVATION_MAX)
+                    .mul(ShortVector.fromArray(SHORTS, outputWeights, length + i));
+            sum = sum.add(products.convert(VectorOperators.S2I, 0))
+                    .add(products.convert(VectorOperators.S2I, 1))
+                    .add(theirProducts.convert(VectorOperators.S2I, 0))
+                    .add(theirProducts.convert(VectorOperators.S2I, 1));
+        }
+        int total = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            total += Math.min(Math.max(us[i], 0), NnueNetwork.ACTIVATION_MAX) * outputWeights[i]
+                    + Math.min(Math.max(them[i], 0), NnueNetwork.ACTIVATION_MAX) * outputWeights[length + i];
+        }
+        return total;
+    }
+}
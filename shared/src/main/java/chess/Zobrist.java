@@ -0,0 +1,34 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * A position's key is the XOR of one key per piece on the board, plus
+ * {@link #SIDE_TO_MOVE} when black is to move, so adding, removing or moving
+ * a piece updates it with one or two XORs. The keys come from a fixed seed so
+ * a position hashes to the same value in every run and keys can be stored.
+ */
+final class Zobrist {
+    /** XORed into a position key when black is to move */
+    static final long SIDE_TO_MOVE;
+
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EEDC0DE240L);
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = random.nextLong();
+        }
+        SIDE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /** @return the key for a piece code standing on a square */
+    static long piece(int code, int sq) {
+        return PIECE_SQUARE[(code << 6) | sq];
+    }
+}
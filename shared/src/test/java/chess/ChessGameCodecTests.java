@@ -0,0 +1,120 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameCodecTests {
+    private final Gson gson = new Gson();
+
+    @Test
+    void roundTripThroughRandomGames() throws InvalidMoveException {
+        for (ChessGame game : randomGames(20, 80)) {
+            ChessGame decoded = ChessGameCodec.decode(ChessGameCodec.encode(game));
+            assertEquals(game, decoded);
+            assertEquals(game.positionKey(), decoded.positionKey());
+            assertEquals(game.isGameOver(), decoded.isGameOver());
+        }
+    }
+
+    @Test
+    void roundTripInBigEndianDirectBuffer() throws InvalidMoveException {
+        ChessGame game = randomGames(1, 30).get(0);
+        game.setGameOver(true);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(3 * ChessGameCodec.ENCODED_SIZE).order(ByteOrder.BIG_ENDIAN);
+        buffer.position(ChessGameCodec.ENCODED_SIZE);
+        ChessGameCodec.encode(game, buffer);
+        assertEquals(2 * ChessGameCodec.ENCODED_SIZE, buffer.position());
+
+        buffer.position(ChessGameCodec.ENCODED_SIZE);
+        ChessGameSnapshot snapshot = ChessGameCodec.decodeSnapshot(buffer);
+        assertEquals(game.snapshot(), snapshot);
+        assertTrue(snapshot.isGameOver());
+    }
+
+    @Test
+    void encodesThePositionButNotTheHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        int[][] moves = {{1, 7, 3, 6}, {8, 7, 6, 6}, {3, 6, 1, 7}, {6, 6, 8, 7}};
+        for (int i = 0; i < 8; i++) {
+            int[] move = moves[i % 4];
+            game.makeMove(new ChessMove(new ChessPosition(move[0], move[1]), new ChessPosition(move[2], move[3]), null));
+        }
+        assertTrue(game.isThreefoldRepetition());
+
+        ChessGame decoded = ChessGameCodec.decode(ChessGameCodec.encode(game));
+        assertEquals(game, decoded);
+        assertEquals(ChessGameCodec.ENCODED_SIZE, ChessGameCodec.encode(decoded).length);
+        assertEquals(0, decoded.moveHistory().size());
+        assertEquals(1, decoded.repetitionCount());
+        assertThrows(IllegalStateException.class, decoded::unmakeMove);
+    }
+
+    @Test
+    void gameAndSnapshotEncodeAlike() throws InvalidMoveException {
+        for (ChessGame game : randomGames(10, 50)) {
+            game.setGameOver(game.getTeamTurn() == ChessGame.TeamColor.BLACK);
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+                ByteBuffer fromGame = ByteBuffer.allocate(ChessGameCodec.ENCODED_SIZE).order(order);
+                ByteBuffer fromSnapshot = ByteBuffer.allocate(ChessGameCodec.ENCODED_SIZE).order(order);
+                ChessGameCodec.encode(game, fromGame);
+                ChessGameCodec.encode(game.snapshot(), fromSnapshot);
+                assertArrayEquals(fromSnapshot.array(), fromGame.array());
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersionAndPieceCodes() {
+        byte[] bytes = ChessGameCodec.encode(new ChessGame());
+        byte[] badVersion = bytes.clone();
+        badVersion[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(badVersion));
+        byte[] badPiece = bytes.clone();
+        badPiece[20] = (byte) 0xF0;
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(badPiece));
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(new byte[10]));
+    }
+
+    @Test
+    void muchSmallerThanGson() {
+        ChessGame game = new ChessGame();
+        int gsonSize = gson.toJson(game).getBytes(StandardCharsets.UTF_8).length;
+        int binarySize = ChessGameCodec.encode(game).length;
+        assertEquals(ChessGameCodec.ENCODED_SIZE, binarySize);
+        assertTrue(binarySize * 10 < gsonSize);
+    }
+
+    private static List<ChessGame> randomGames(int count, int plies) throws InvalidMoveException {
+        Random random = new Random(13);
+        List<ChessGame> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < plies; ply++) {
+                List<ChessMove> moves = new ArrayList<>();
+                for (int row = 1; row <= 8; row++) {
+                    for (int col = 1; col <= 8; col++) {
+                        ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                        if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                            moves.addAll(game.validMoves(new ChessPosition(row, col)));
+                        }
+                    }
+                }
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+            games.add(game);
+        }
+        return games;
+    }
+}
@@ -0,0 +1,73 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameSnapshotTests {
+
+    @Test
+    void toGameRestoresThePosition() {
+        Random random = new Random(12);
+        for (int games = 0; games < 20; games++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 60 && game.hasAnyLegalMove(game.getTeamTurn()); ply++) {
+                ChessGame copy = game.snapshot().toGame();
+                assertEquals(game, copy);
+                assertEquals(game.getTeamTurn(), copy.getTeamTurn());
+                assertEquals(game.positionKey(), copy.positionKey());
+                assertEquals(game.toFen(), copy.toFen());
+                assertEquals(game.status(), copy.status());
+                playRandomMove(game, random);
+            }
+        }
+    }
+
+    @Test
+    void toGameKeepsTurnAndGameOver() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 b");
+        game.setGameOver(true);
+        ChessGameSnapshot snapshot = game.snapshot();
+        ChessGame copy = snapshot.toGame();
+        assertEquals(ChessGame.TeamColor.BLACK, copy.getTeamTurn());
+        assertTrue(copy.isGameOver());
+        assertEquals(snapshot.positionKey(), copy.positionKey());
+        assertEquals(snapshot, copy.snapshot());
+    }
+
+    @Test
+    void toGameIsIndependentOfTheSnapshot() {
+        ChessGameSnapshot snapshot = new ChessGame().snapshot();
+        ChessGame copy = snapshot.toGame();
+        playRandomMove(copy, new Random(3));
+        assertEquals(new ChessGame().snapshot(), snapshot);
+        assertEquals(snapshot, snapshot.toGame().snapshot());
+    }
+
+    @Test
+    void unchangedWhenTheGameMoves() {
+        ChessGame game = new ChessGame();
+        ChessGameSnapshot snapshot = game.snapshot();
+        ChessGameSnapshot copy = new ChessGame().snapshot();
+        Random random = new Random(7);
+        for (int ply = 0; ply < 30 && game.hasAnyLegalMove(game.getTeamTurn()); ply++) {
+            playRandomMove(game, random);
+        }
+        game.setGameOver(true);
+        game.getBoard().addPiece(new ChessPosition(4, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+
+        assertEquals(copy, snapshot);
+        assertEquals(ChessGame.TeamColor.WHITE, snapshot.getTeamTurn());
+        assertFalse(snapshot.isGameOver());
+        assertNull(snapshot.getPiece(new ChessPosition(4, 4)));
+        assertEquals(new ChessGame(), snapshot.toGame());
+    }
+
+    private static void playRandomMove(ChessGame game, Random random) {
+        MoveList moves = new MoveList();
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), moves);
+        game.makeMove(moves.get(random.nextInt(moves.size())));
+    }
+}
@@ -0,0 +1,65 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentReadTests {
+    private static final int THREADS = 8;
+    private final Gson gson = new Gson();
+
+    @Test
+    void validMovesFromManyThreadsMatchesSingleThread() throws Exception {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5)));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4)));
+        game.makeMove(new ChessMove(new ChessPosition(1, 6), new ChessPosition(5, 2)));
+        String json = gson.toJson(game);
+        List<Set<ChessMove>> expected = allMoves(gson.fromJson(json, ChessGame.class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 50; round++) {
+                // A freshly deserialized game has not built its bitboards yet,
+                // so every round also races the lazy rebuild
+                ChessGame shared = gson.fromJson(json, ChessGame.class);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<List<Set<ChessMove>>>> results = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        shared.status();
+                        return allMoves(shared);
+                    }));
+                }
+                start.countDown();
+                for (Future<List<Set<ChessMove>>> result : results) {
+                    assertEquals(expected, result.get());
+                }
+                assertTrue(shared.status().inCheck());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<Set<ChessMove>> allMoves(ChessGame game) {
+        List<Set<ChessMove>> moves = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                moves.add(new HashSet<>(game.validMoves(new ChessPosition(row, col))));
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,65 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTests {
+
+    @Test
+    void startPositionIsLevel() {
+        ChessGame game = new ChessGame();
+        assertEquals(0, Evaluation.evaluate(game));
+        assertEquals(Evaluation.MAX_PHASE, game.getBoard().phase());
+    }
+
+    @Test
+    void scoreIsFromRequestedSide() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/3QK3 w");
+        int white = Evaluation.evaluate(game, ChessGame.TeamColor.WHITE);
+        assertTrue(white > 800);
+        assertEquals(-white, Evaluation.evaluate(game, ChessGame.TeamColor.BLACK));
+        assertEquals(white, Evaluation.evaluate(game));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertEquals(-white, Evaluation.evaluate(game));
+    }
+
+    @Test
+    void mirroredPositionsScoreTheSame() {
+        ChessGame game = ChessGame.fromFen("r1bqk2r/pppp1ppp/2n2n2/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQK2R w");
+        ChessGame mirrored = ChessGame.fromFen("rnbqk2r/ppp2ppp/3p1n2/2b1p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R b");
+        assertEquals(Evaluation.evaluate(game), Evaluation.evaluate(mirrored));
+    }
+
+    @Test
+    void kingPrefersCenterInEndgame() {
+        ChessGame center = ChessGame.fromFen("7k/8/8/8/3K4/8/8/8 w");
+        ChessGame corner = ChessGame.fromFen("7k/8/8/8/8/8/8/K7 w");
+        assertTrue(Evaluation.evaluate(center) > Evaluation.evaluate(corner));
+    }
+
+    @Test
+    void incrementalMatchesRebuiltAcrossRandomGames() {
+        Random random = new Random(19);
+        for (int gameIndex = 0; gameIndex < 30; gameIndex++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                MoveList moves = new MoveList();
+                LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                ChessGame rebuilt = ChessGame.fromFen(game.toFen());
+                assertEquals(Evaluation.evaluate(rebuilt), Evaluation.evaluate(game), game.toFen());
+                assertEquals(rebuilt.getBoard().phase(), game.getBoard().phase());
+            }
+            while (game.moveHistory().size() > 0) {
+                game.unmakeMove();
+            }
+            assertEquals(0, Evaluation.evaluate(game));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FenTests {
+
+    @Test
+    void startPositionMatchesNewGame() {
+        ChessGame game = ChessGame.fromFen(Fen.START);
+        assertEquals(new ChessGame(), game);
+        assertEquals(Fen.START, new ChessGame().toFen());
+    }
+
+    @Test
+    void readsPlacementAndTurn() {
+        ChessGame game = ChessGame.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 3 41");
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                game.getBoard().getPiece(new ChessPosition(5, 1)));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK),
+                game.getBoard().getPiece(new ChessPosition(5, 8)));
+        assertNull(game.getBoard().getPiece(new ChessPosition(1, 1)));
+        assertEquals("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 0 1", game.toFen());
+    }
+
+    @Test
+    void placementAndSideAloneAreEnough() {
+        ChessGame game = ChessGame.fromFen("4k3/1P6/8/8/8/8/6p1/4K3 w");
+        assertEquals(8, legalMoveCount(game));
+    }
+
+    @Test
+    void reusedGameMatchesPlayedGame() throws InvalidMoveException {
+        ChessGame played = new ChessGame();
+        played.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        played.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        played.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+
+        ChessGame reused = ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - - 0 1");
+        reused.setFen("rnbqkbnr/ppp1pppp/8/3P4/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2");
+        assertEquals(played, reused);
+        assertEquals(played.positionKey(), reused.positionKey());
+        assertEquals(legalMoveCount(played), legalMoveCount(reused));
+        assertEquals(played.toFen(), reused.toFen());
+    }
+
+    @Test
+    void setFenStartsANewGame() {
+        ChessGame game = ChessGame.fromFen("k7/8/8/8/8/8/8/K6q w - - 0 1");
+        game.setGameOver(true);
+        assertThrows(IllegalArgumentException.class, () -> game.setFen("8/8/8 w - - 0 1"));
+        assertTrue(game.isGameOver());
+
+        game.setFen(Fen.START);
+        assertFalse(game.isGameOver());
+        assertEquals(new ChessGame(), game);
+        assertArrayEquals(ChessGameCodec.encode(new ChessGame()), ChessGameCodec.encode(game));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "8/8/8/8/8/8/8 w - - 0 1",
+            "8/8/8/8/8/8/8/8/8 w - - 0 1",
+            "9/8/8/8/8/8/8/8 w - - 0 1",
+            "ppppppppp/8/8/8/8/8/8/8 w - - 0 1",
+            "8/8/8/8/8/8/8/7x w - - 0 1",
+            "8/8/8/8/8/8/8/8 x - - 0 1",
+            "8/8/8/8/8/8/8/8 w KQkx - 0 1",
+            "8/8/8/8/8/8/8/8 w - e4 0 1",
+            "8/8/8/8/8/8/8/8 w - - a 1",
+            "8/8/8/8/8/8/8/8 w - - 0 1 extra",
+    })
+    void rejectsInvalidFen(String fen) {
+        ChessGame game = new ChessGame();
+        assertThrows(IllegalArgumentException.class, () -> game.setFen(fen));
+        assertEquals(new ChessGame(), game);
+    }
+
+    private static int legalMoveCount(ChessGame game) {
+        MoveList moves = new MoveList();
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), moves);
+        return moves.size();
+    }
+}
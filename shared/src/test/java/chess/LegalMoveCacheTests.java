@@ -0,0 +1,145 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveCacheTests {
+
+    @Test
+    void matchesGameWithoutCache() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(1024);
+        Random random = new Random(25);
+        for (int games = 0; games < 20; games++) {
+            ChessGame cached = new ChessGame();
+            ChessGame plain = new ChessGame();
+            for (int ply = 0; ply < 100 && plain.hasAnyLegalMove(plain.getTeamTurn()); ply++) {
+                assertEquals(plain.status(), cache.status(cached));
+                for (int sq = 0; sq < 64; sq++) {
+                    ChessPosition position = Bitboards.position(sq);
+                    assertEquals(new HashSet<>(plain.validMoves(position)),
+                            new HashSet<>(cache.validMoves(cached, position)));
+                }
+                List<ChessMove> moves = allMoves(plain);
+                ChessMove move = moves.get(random.nextInt(moves.size()));
+                plain.makeMove(move);
+                cache.makeMove(cached, move);
+                assertEquals(plain, cached);
+            }
+            assertEquals(plain.status(), cache.status(cached));
+        }
+    }
+
+    @Test
+    void sharesPositionsAcrossGames() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(1024);
+        for (int games = 0; games < 3; games++) {
+            ChessGame game = new ChessGame();
+            cache.makeMove(game, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+            cache.makeMove(game, new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+            cache.status(game);
+        }
+        assertEquals(new LegalMoveCache.Stats(6, 3, 0), cache.stats());
+        assertEquals(2.0 / 3, cache.stats().hitRate(), 1e-9);
+        cache.clear();
+        assertEquals(new LegalMoveCache.Stats(0, 0, 0), cache.stats());
+    }
+
+    @Test
+    void replacesOtherPositionsWhenFull() {
+        LegalMoveCache cache = new LegalMoveCache(1);
+        ChessGame start = new ChessGame();
+        ChessGame other = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w");
+        assertEquals(20, cache.status(start).legalMoveCount());
+        assertEquals(5, cache.status(other).legalMoveCount());
+        assertEquals(20, cache.status(start).legalMoveCount());
+        assertEquals(new LegalMoveCache.Stats(0, 3, 2), cache.stats());
+    }
+
+    @Test
+    void keepsTeamsApart() {
+        LegalMoveCache cache = new LegalMoveCache(1024);
+        ChessGame white = new ChessGame();
+        ChessGame black = new ChessGame();
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+        cache.status(white);
+        GameStatus status = cache.status(black);
+        assertEquals(ChessGame.TeamColor.BLACK, status.teamToMove());
+        assertEquals(20, status.legalMoveCount());
+        assertEquals(0, cache.stats().hits());
+        // A piece whose team is not to move still gets its own moves
+        assertEquals(2, cache.validMoves(white, new ChessPosition(7, 1)).size());
+    }
+
+    @Test
+    void rejectsInvalidMoves() {
+        LegalMoveCache cache = new LegalMoveCache(16);
+        ChessGame game = new ChessGame();
+        assertThrows(InvalidMoveException.class, () ->
+                cache.makeMove(game, new ChessMove(new ChessPosition(4, 4), new ChessPosition(5, 4), null)));
+        assertThrows(InvalidMoveException.class, () ->
+                cache.makeMove(game, new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null)));
+        assertThrows(InvalidMoveException.class, () ->
+                cache.makeMove(game, new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null)));
+        assertEquals(new ChessGame(), game);
+        assertThrows(IllegalArgumentException.class, () -> new LegalMoveCache(0));
+    }
+
+    @Test
+    void playsLongGames() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(16);
+        ChessGame game = new ChessGame();
+        ChessPosition[] shuffle = {new ChessPosition(1, 7), new ChessPosition(3, 6),
+                new ChessPosition(8, 7), new ChessPosition(6, 6)};
+        for (int i = 0; i < 600; i++) {
+            int piece = (i & 1) * 2;
+            boolean out = (i & 2) == 0;
+            cache.makeMove(game, new ChessMove(shuffle[piece + (out ? 0 : 1)], shuffle[piece + (out ? 1 : 0)], null));
+        }
+        assertEquals(new ChessGame().toFen(), game.toFen());
+    }
+
+    @Test
+    void sharedByManyThreads() throws Exception {
+        LegalMoveCache cache = new LegalMoveCache(64);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                long seed = thread % 2;
+                results.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int games = 0; games < 20; games++) {
+                        ChessGame game = new ChessGame();
+                        for (int ply = 0; ply < 40 && game.hasAnyLegalMove(game.getTeamTurn()); ply++) {
+                            assertEquals(game.status(), cache.status(game));
+                            List<ChessMove> moves = allMoves(game);
+                            cache.makeMove(game, moves.get(random.nextInt(moves.size())));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(cache.stats().hits() > 0);
+    }
+
+    private static List<ChessMove> allMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), moves);
+        return moves.toChessMoves();
+    }
+}
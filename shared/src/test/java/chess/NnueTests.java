@@ -0,0 +1,163 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NnueTests {
+    private static final NnueNetwork NETWORK = NnueNetwork.random(64, 20);
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 16, 37, 64, 256})
+    void kernelsAgree(int length) {
+        Random random = new Random(length);
+        NnueKernel best = NnueKernel.best();
+        NnueKernel scalar = NnueKernel.scalar();
+        short[] weights = new short[3 * length];
+        short[] outputWeights = new short[2 * length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (short) (random.nextInt(2001) - 1000);
+        }
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (short) (random.nextInt(255) - 127);
+        }
+        short[] ours = new short[length];
+        short[] theirs = new short[length];
+        short[] expectedOurs = new short[length];
+        short[] expectedTheirs = new short[length];
+        for (int step = 0; step < 20; step++) {
+            int offset = random.nextInt(2 * length + 1);
+            if (random.nextBoolean()) {
+                best.add(ours, weights, offset, length);
+                scalar.add(expectedOurs, weights, offset, length);
+                best.subtract(theirs, weights, offset, length);
+                scalar.subtract(expectedTheirs, weights, offset, length);
+            } else {
+                best.subtract(ours, weights, offset, length);
+                scalar.subtract(expectedOurs, weights, offset, length);
+                best.add(theirs, weights, offset, length);
+                scalar.add(expectedTheirs, weights, offset, length);
+            }
+            assertArrayEquals(expectedOurs, ours, best.name());
+            assertArrayEquals(expectedTheirs, theirs, best.name());
+            assertEquals(scalar.forward(expectedOurs, expectedTheirs, outputWeights, length),
+                    best.forward(ours, theirs, outputWeights, length), best.name());
+        }
+    }
+
+    @Test
+    void evaluatorsAgreeWithScratchAcrossRandomGames() {
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        NnueEvaluator scalar = NnueEvaluator.scalar(NETWORK);
+        Random random = new Random(20);
+        for (int gameIndex = 0; gameIndex < 20; gameIndex++) {
+            ChessGame game = new ChessGame();
+            evaluator.attach(game);
+            for (int ply = 0; ply < 120; ply++) {
+                MoveList moves = new MoveList();
+                LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                int expected = scalar.evaluateFromScratch(game);
+                assertEquals(expected, evaluator.evaluate(game), game.toFen());
+                assertEquals(expected, evaluator.evaluateFromScratch(game), game.toFen());
+            }
+            while (game.moveHistory().size() > 0) {
+                game.unmakeMove();
+                assertEquals(scalar.evaluateFromScratch(game), evaluator.evaluate(game), game.toFen());
+            }
+        }
+    }
+
+    @Test
+    void accumulatorsFollowBoardReplacement() {
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        ChessGame game = new ChessGame();
+        evaluator.attach(game);
+        game.setFen("r1bqk2r/pppp1ppp/2n2n2/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQK2R w");
+        assertEquals(evaluator.evaluateFromScratch(game), evaluator.evaluate(game));
+        game.getBoard().addPiece(new ChessPosition(4, 4),
+                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        assertEquals(evaluator.evaluateFromScratch(game), evaluator.evaluate(game));
+    }
+
+    @Test
+    void mirroredPositionsScoreTheSame() {
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        ChessGame game = ChessGame.fromFen("r1bqk2r/pppp1ppp/2n2n2/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQK2R w");
+        ChessGame mirrored = ChessGame.fromFen("rnbqk2r/ppp2ppp/3p1n2/2b1p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R b");
+        assertEquals(evaluator.evaluate(game), evaluator.evaluate(mirrored));
+    }
+
+    @Test
+    void saveAndLoadRoundTrip() throws IOException {
+        Path file = Files.createTempFile("nnue", ".bin");
+        try {
+            NETWORK.save(file);
+            NnueNetwork loaded = NnueNetwork.load(file);
+            assertEquals(NETWORK.hiddenSize(), loaded.hiddenSize());
+            assertArrayEquals(NETWORK.featureWeights, loaded.featureWeights);
+            assertArrayEquals(NETWORK.featureBiases, loaded.featureBiases);
+            assertArrayEquals(NETWORK.outputWeights, loaded.outputWeights);
+            assertEquals(NETWORK.outputBias, loaded.outputBias);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void loadRejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("nnue", ".bin");
+        try {
+            Files.writeString(file, "not a network");
+            assertThrows(IOException.class, () -> NnueNetwork.load(file));
+            NETWORK.save(file);
+            byte[] truncated = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(truncated, truncated.length - 1));
+            assertThrows(IOException.class, () -> NnueNetwork.load(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void searchUsesNetwork() {
+        ChessGame game = new ChessGame();
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        SearchResult result = new Search(new TranspositionTable(1), evaluator).search(game, SearchLimits.depth(3));
+        assertNotEquals(Move.NONE, result.move());
+        assertNull(game.getBoard().nnue());
+        assertEquals(evaluator.evaluateFromScratch(game), evaluator.evaluate(game));
+
+        evaluator.attach(game);
+        new Search(new TranspositionTable(1), evaluator).search(game, SearchLimits.depth(2));
+        assertNotNull(evaluator.accumulator(game));
+    }
+
+    @Test
+    void evaluateLeavesGamesUnattached() {
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        NnueEvaluator other = new NnueEvaluator(NnueNetwork.random(64, 21));
+        ChessGame game = ChessGame.fromFen("r1bqk2r/pppp1ppp/2n2n2/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQK2R w");
+        int score = evaluator.evaluate(game);
+        assertNull(game.getBoard().nnue());
+
+        evaluator.attach(game);
+        assertEquals(score, evaluator.evaluate(game));
+        other.detach(game);
+        assertNotNull(evaluator.accumulator(game));
+        evaluator.detach(game);
+        assertNull(game.getBoard().nnue());
+        assertEquals(score, evaluator.evaluate(game));
+    }
+}
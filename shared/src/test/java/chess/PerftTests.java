@@ -0,0 +1,51 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+
+    @Test
+    void referencePositions() {
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = ChessGame.fromFen(reference.fen());
+            int depth = Math.min(reference.nodes().length, reference.nodes()[2] < 100_000 ? 4 : 3);
+            for (int d = 1; d <= depth; d++) {
+                assertEquals(reference.nodes()[d - 1], Perft.count(game, d), reference.fen() + " depth " + d);
+            }
+            assertEquals(ChessGame.fromFen(reference.fen()), game);
+        }
+    }
+
+    @Test
+    void parallelMatchesSequential() {
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = ChessGame.fromFen(reference.fen());
+            assertEquals(reference.nodes()[2], Perft.countParallel(game, 3), reference.fen());
+        }
+        assertEquals(197281, Perft.countParallel(new ChessGame(), 4));
+    }
+
+    @Test
+    void divideSumsToCount() {
+        ChessGame game = ChessGame.fromFen(Perft.REFERENCE_POSITIONS.get(2).fen());
+        Map<String, Long> divided = Perft.divide(game, 3);
+        assertEquals(6, divided.size());
+        assertEquals(9217, divided.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(1710, (long) divided.get("g1h1"));
+    }
+
+    @Test
+    void publicMoveApisAgree() {
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = ChessGame.fromFen(reference.fen());
+            assertEquals(reference.nodes()[1], Perft.countWithValidMoves(game, 2), reference.fen());
+            assertEquals(reference.nodes()[1], Perft.countWithPieceMoves(game, 2), reference.fen());
+        }
+        assertEquals(8902, Perft.countWithValidMoves(new ChessGame(), 3));
+        assertEquals(8902, Perft.countWithPieceMoves(new ChessGame(), 3));
+    }
+}
@@ -0,0 +1,313 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnTests {
+
+    @Test
+    void writesPieceAndPawnMoves() {
+        ChessGame game = new ChessGame();
+        assertEquals("e4", san(game, "e2e4"));
+        assertEquals("Nf3", san(game, "g1f3"));
+        game = ChessGame.fromFen("4k3/8/8/3p4/4P3/8/8/4K3 w");
+        assertEquals("exd5", san(game, "e4d5"));
+        assertEquals("Kd2", san(game, "e1d2"));
+        game = ChessGame.fromFen("1r2k3/2P5/8/8/8/8/8/4K3 w");
+        assertEquals("c8=Q+", san(game, "c7c8q"));
+        assertEquals("cxb8=N", san(game, "c7b8n"));
+    }
+
+    @Test
+    void disambiguatesOnlyWhenNeeded() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/5N2/8/1N2K3 w");
+        assertEquals("Nbd2", san(game, "b1d2"));
+        assertEquals("Nfd2", san(game, "f3d2"));
+        assertEquals("Nc3", san(game, "b1c3"));
+        game = ChessGame.fromFen("4k3/R7/8/8/8/8/8/R3K3 w");
+        assertEquals("R1a4", san(game, "a1a4"));
+        assertEquals("R7a4", san(game, "a7a4"));
+        game = ChessGame.fromFen("6k1/8/8/8/Q2Q4/8/8/Q3K3 w");
+        assertEquals("Qa4d1", san(game, "a4d1"));
+        assertEquals("Q1d1", san(game, "a1d1"));
+        assertEquals("Qdd1", san(game, "d4d1"));
+    }
+
+    @Test
+    void pinnedRivalsDoNotNeedDisambiguation() {
+        // The knight on e2 is pinned by the rook on e8
+        ChessGame game = ChessGame.fromFen("4r2k/8/8/8/8/8/4N3/1N2K3 w");
+        assertEquals("Nc3", san(game, "b1c3"));
+        // A rook pinned along the line it moves on still counts
+        game = ChessGame.fromFen("4r1k1/8/8/8/7R/4R3/8/4K3 w");
+        assertEquals("Rhe4", san(game, "h4e4"));
+        assertEquals("Ree4", san(game, "e3e4"));
+    }
+
+    @Test
+    void marksCheckAndMate() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R3K3 w");
+        assertEquals("Ra8#", san(game, "a1a8"));
+        assertEquals("Ra7", san(game, "a1a7"));
+        game = ChessGame.fromFen("6k1/5pp1/8/8/8/8/8/R3K3 w");
+        assertEquals("Ra8+", san(game, "a1a8"));
+    }
+
+    @Test
+    void sanMatchesFullMoveGeneration() {
+        Random random = new Random(23);
+        for (int games = 0; games < 40; games++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                MoveList moves = legalMoves(game);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                for (int i = 0; i < moves.size(); i++) {
+                    assertEquals(referenceSan(game, moves, moves.get(i)), San.toString(game, moves.get(i)),
+                            game.toFen() + " " + Move.toString(moves.get(i)));
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    void writesFoolsMate() throws IOException {
+        ChessGame game = new ChessGame();
+        for (String move : new String[]{"f2f3", "e7e5", "g2g4", "d8h4"}) {
+            game.makeMove(find(game, move));
+        }
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Casual \"blitz\"");
+        tags.put("White", "joe");
+        tags.put("Result", "ignored");
+        tags.put("GameId", "7");
+        assertEquals("""
+                [Event "Casual \\"blitz\\""]
+                [Site "?"]
+                [Date "????.??.??"]
+                [Round "?"]
+                [White "joe"]
+                [Black "?"]
+                [Result "0-1"]
+                [GameId "7"]
+
+                1. f3 e5 2. g4 Qh4# 0-1
+
+                """, write(tags, game));
+    }
+
+    @Test
+    void writesSetUpPositionWithoutMoves() throws IOException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K2R b");
+        game.makeMove(find(game, "e8d7"));
+        String pgn = write(Map.of(), game);
+        assertTrue(pgn.contains("[Result \"*\"]\n[SetUp \"1\"]\n[FEN \"8/3k4/8/8/8/8/8/4K2R w - - 0 1\"]\n\n*\n\n"),
+                pgn);
+    }
+
+    @Test
+    void wrapsLongGames() throws IOException {
+        ChessGame game = new ChessGame();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (int i = 0; i < 40; i++) {
+            game.makeMove(find(game, shuffle[i % 4]));
+        }
+        String pgn = write(Map.of(), game);
+        String movetext = pgn.substring(pgn.indexOf("\n\n") + 2);
+        assertTrue(movetext.startsWith("1. Nf3 Nf6 2. Ng1 Ng8 3. Nf3"), movetext);
+        assertTrue(movetext.endsWith(" 1/2-1/2\n\n"), movetext);
+        for (String line : movetext.split("\n")) {
+            assertTrue(line.length() <= PgnWriter.LINE_LENGTH, line);
+        }
+        assertEquals(20 + 40 + 1, movetext.trim().split("\\s+").length);
+    }
+
+    @Test
+    void parsesWhatItWrites() {
+        Random random = new Random(24);
+        for (int games = 0; games < 40; games++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                MoveList moves = legalMoves(game);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                for (int i = 0; i < moves.size(); i++) {
+                    assertEquals(moves.get(i), San.parse(game, San.toString(game, moves.get(i))));
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    void parsesLooseAndRejectsBadMoves() {
+        ChessGame game = ChessGame.fromFen("1r2k3/2P5/8/8/8/5N2/8/1N2K3 w");
+        assertEquals(find(game, "c7b8q"), San.parse(game, "cxb8=Q!?"));
+        assertEquals(find(game, "c7c8n"), San.parse(game, "c8N+"));
+        assertEquals(find(game, "b1d2"), San.parse(game, "Nb1d2"));
+        assertEquals(find(game, "f3e5"), San.parse(game, "Nxe5"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Nd2"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "c8"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Qd4"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "O-O"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Nz9"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "N"));
+    }
+
+    @Test
+    void readsGamesWithCommentsAndVariations() throws IOException {
+        String pgn = """
+                [Event "Test \\"one\\""]
+                [White "a"]
+
+                1. e4 {best by test} e5 (1... c5 2. Nf3 (2. c3) d6) 2. Nf3 $1 ; a comment (
+                Nc6 3.Bb5 a6 1-0
+
+                [Event "Two"]
+                [Bad tag]
+                1. d4 d5 *
+                [Event "No result"]
+                1. f3 e5 2. g4 Qh4#
+                """;
+        PgnReader reader = new PgnReader(new StringReader(pgn));
+        List<PgnGame> games = new ArrayList<>();
+        PgnGame game;
+        while ((game = reader.next()) != null) {
+            games.add(game);
+        }
+        assertEquals(3, games.size());
+        assertEquals(Map.of("Event", "Test \"one\"", "White", "a"), games.get(0).tags());
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6"), games.get(0).moves());
+        assertEquals("1-0", games.get(0).result());
+        assertEquals(Map.of("Event", "Two"), games.get(1).tags());
+        assertEquals(List.of("d4", "d5"), games.get(1).moves());
+        assertEquals("*", games.get(1).result());
+        assertEquals("*", games.get(2).result());
+        assertTrue(games.get(2).replay().isInCheckmate(ChessGame.TeamColor.WHITE));
+        assertTrue(games.get(0).replay().isGameOver());
+        assertFalse(games.get(1).replay().isGameOver());
+    }
+
+    @Test
+    void replaysWrittenGames() throws IOException {
+        ChessGame played = new ChessGame();
+        Random random = new Random(25);
+        for (int ply = 0; ply < 60 && played.hasAnyLegalMove(played.getTeamTurn()); ply++) {
+            MoveList moves = legalMoves(played);
+            played.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+        ChessGame setUp = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K2R b");
+        String pgn = write(Map.of("Event", "first"), played) + write(Map.of(), setUp);
+        PgnReader reader = new PgnReader(new StringReader(pgn));
+        ChessGame replayed = reader.next().replay();
+        assertEquals(played.toFen(), replayed.toFen());
+        assertArrayEquals(played.moveHistory().toArray(), replayed.moveHistory().toArray());
+        assertEquals(setUp.toFen(), reader.next().replay().toFen());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void replaysLongGames() {
+        List<String> moves = new ArrayList<>();
+        String[] shuffle = {"Nf3", "Nf6", "Ng1", "Ng8"};
+        for (int i = 0; i < 600; i++) {
+            moves.add(shuffle[i % 4]);
+        }
+        ChessGame game = new PgnGame(Map.of(), moves, "1/2-1/2").replay();
+        assertEquals(new ChessGame().toFen(), game.toFen());
+        assertEquals(600, game.moveHistory().size());
+    }
+
+    @Test
+    void reportsWhichPlyIsIllegal() {
+        PgnGame game = new PgnGame(Map.of(), List.of("e4", "e5", "Ke3"), "*");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, game::replay);
+        assertEquals("Ply 3: Illegal move: Ke3", exception.getMessage());
+    }
+
+    private static String write(Map<String, String> tags, ChessGame game) throws IOException {
+        StringWriter out = new StringWriter();
+        new PgnWriter(out).write(tags, game);
+        return out.toString();
+    }
+
+    private static String san(ChessGame game, String move) {
+        return San.toString(game, find(game, move));
+    }
+
+    private static int find(ChessGame game, String move) {
+        MoveList moves = legalMoves(game);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toString(moves.get(i)).equals(move)) {
+                return moves.get(i);
+            }
+        }
+        throw new AssertionError(move + " is not legal in " + game.toFen());
+    }
+
+    private static MoveList legalMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), moves);
+        return moves;
+    }
+
+    // SAN built the slow way, comparing the move against every legal move
+    private static String referenceSan(ChessGame game, MoveList moves, int move) {
+        ChessBoard board = game.getBoard();
+        ChessPiece piece = board.pieceAt(Move.from(move));
+        StringBuilder out = new StringBuilder();
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            if (Move.isCapture(move)) {
+                out.append(square(Move.from(move)).charAt(0)).append('x');
+            }
+            out.append(square(Move.to(move)));
+            if (Move.isPromotion(move)) {
+                out.append('=').append("KQBNRP".charAt(Move.promotionType(move).ordinal()));
+            }
+        } else {
+            out.append("KQBNRP".charAt(piece.getPieceType().ordinal()));
+            boolean rival = false;
+            boolean sameFile = false;
+            boolean sameRank = false;
+            for (int i = 0; i < moves.size(); i++) {
+                int other = moves.get(i);
+                if (other != move && Move.to(other) == Move.to(move) && piece.equals(board.pieceAt(Move.from(other)))) {
+                    rival = true;
+                    sameFile |= (Move.from(other) & 7) == (Move.from(move) & 7);
+                    sameRank |= (Move.from(other) >>> 3) == (Move.from(move) >>> 3);
+                }
+            }
+            String from = square(Move.from(move));
+            if (rival) {
+                out.append(!sameFile ? from.substring(0, 1) : !sameRank ? from.substring(1) : from);
+            }
+            if (Move.isCapture(move)) {
+                out.append('x');
+            }
+            out.append(square(Move.to(move)));
+        }
+        game.makeMove(move);
+        if (game.isInCheck(game.getTeamTurn())) {
+            out.append(game.hasAnyLegalMove(game.getTeamTurn()) ? '+' : '#');
+        }
+        game.unmakeMove();
+        return out.toString();
+    }
+
+    private static String square(int sq) {
+        return "" + (char) ('a' + (sq & 7)) + (char) ('1' + (sq >>> 3));
+    }
+}
@@ -0,0 +1,163 @@
+package chess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolyglotTests {
+    private static final String PROMOTION_FEN = "8/P6k/8/8/8/8/8/K7 w";
+
+    // Stands in for the standard table, which is not part of the repo
+    private final PolyglotKeys keys = new PolyglotKeys(new SplittableRandom(21).longs(PolyglotKeys.SIZE).toArray());
+    private Path file;
+    private PolyglotBook book;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        long start = keys.key(new ChessGame());
+        List<long[]> entries = new ArrayList<>();
+        entries.add(entry(start, "e2e4", 0, 10));
+        entries.add(entry(start, "d2d4", 0, 5));
+        entries.add(entry(start, "e1h1", 0, 3));
+        entries.add(entry(start, "g1f3", 0, 0));
+        entries.add(entry(keys.key(ChessGame.fromFen(PROMOTION_FEN)), "a7a8", 4, 1));
+        Random random = new Random(21);
+        for (int i = 0; i < 5000; i++) {
+            entries.add(new long[]{random.nextLong(), random.nextInt(1 << 12), random.nextInt(100)});
+        }
+        entries.sort(Comparator.comparing((long[] entry) -> entry[0], Long::compareUnsigned));
+
+        ByteBuffer buffer = ByteBuffer.allocate(16 * entries.size());
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) entry[2]).putInt(0);
+        }
+        file = Files.createTempFile("book", ".bin");
+        // Mapped files cannot be deleted on some systems until unmapped by GC
+        file.toFile().deleteOnExit();
+        Files.write(file, buffer.array());
+        book = PolyglotBook.open(file, keys);
+    }
+
+    @Test
+    void findsLegalMovesInFileOrder() {
+        List<PolyglotBook.BookMove> moves = book.moves(new ChessGame());
+        assertEquals(5005, book.size());
+        assertEquals(3, moves.size());
+        assertEquals(new PolyglotBook.BookMove(move(2, 5, 4, 5, null), 10), moves.get(0));
+        assertEquals(new PolyglotBook.BookMove(move(2, 4, 4, 4, null), 5), moves.get(1));
+        assertEquals(new PolyglotBook.BookMove(move(1, 7, 3, 6, null), 0), moves.get(2));
+    }
+
+    @Test
+    void decodesPromotions() {
+        List<PolyglotBook.BookMove> moves = book.moves(ChessGame.fromFen(PROMOTION_FEN));
+        assertEquals(List.of(new PolyglotBook.BookMove(move(7, 1, 8, 1, ChessPiece.PieceType.QUEEN), 1)), moves);
+    }
+
+    @Test
+    void positionsOutOfBookHaveNoMoves() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w");
+        assertTrue(book.moves(game).isEmpty());
+        assertNull(book.pick(game, new Random(1)));
+    }
+
+    @Test
+    void picksByWeight() {
+        Random random = new Random(21);
+        int e4 = 0;
+        int d4 = 0;
+        for (int i = 0; i < 3000; i++) {
+            ChessMove move = book.pick(new ChessGame(), random);
+            if (move.equals(move(2, 5, 4, 5, null))) {
+                e4++;
+            } else if (move.equals(move(2, 4, 4, 4, null))) {
+                d4++;
+            } else {
+                fail("picked " + move);
+            }
+        }
+        assertTrue(e4 > 1800 && e4 < 2200, "e4 picked " + e4 + " times");
+        assertEquals(3000, e4 + d4);
+    }
+
+    @Test
+    void threadsShareOneBook() throws Exception {
+        List<PolyglotBook.BookMove> expected = book.moves(new ChessGame());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        if (!book.moves(new ChessGame()).equals(expected)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsPartialEntries() throws IOException {
+        Files.write(file, new byte[24]);
+        assertThrows(IOException.class, () -> PolyglotBook.open(file, keys));
+    }
+
+    @Test
+    void rejectsOtherKeyTables() throws IOException {
+        long[] randoms = new SplittableRandom(21).longs(PolyglotKeys.SIZE).toArray();
+        assertThrows(IllegalArgumentException.class, () -> PolyglotKeys.of(randoms));
+        assertThrows(IllegalArgumentException.class, () -> PolyglotKeys.of(new long[10]));
+        ByteBuffer buffer = ByteBuffer.allocate(PolyglotKeys.SIZE * Long.BYTES);
+        buffer.asLongBuffer().put(randoms);
+        Files.write(file, buffer.array());
+        assertThrows(IOException.class, () -> PolyglotKeys.load(file));
+        Files.write(file, new byte[100]);
+        assertThrows(IOException.class, () -> PolyglotKeys.load(file));
+    }
+
+    @Test
+    void keyDependsOnPositionOnly() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        long start = keys.key(game);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertNotEquals(start, keys.key(game));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        game.makeMove(move(1, 7, 3, 6, null));
+        game.makeMove(move(8, 7, 6, 6, null));
+        game.makeMove(move(3, 6, 1, 7, null));
+        game.makeMove(move(6, 6, 8, 7, null));
+        assertEquals(start, keys.key(game));
+    }
+
+    private static long[] entry(long key, String move, int promotion, int weight) {
+        int from = (move.charAt(0) - 'a') + 8 * (move.charAt(1) - '1');
+        int to = (move.charAt(2) - 'a') + 8 * (move.charAt(3) - '1');
+        return new long[]{key, (promotion << 12) | (from << 6) | to, weight};
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol, ChessPiece.PieceType promotion) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), promotion);
+    }
+}
@@ -0,0 +1,167 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RepetitionTests {
+
+    @Test
+    void knightShuffleRepeatsThreeTimes() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertEquals(1, game.repetitionCount());
+        shuffleKnights(game);
+        assertEquals(2, game.repetitionCount());
+        assertFalse(game.isThreefoldRepetition());
+        shuffleKnights(game);
+        assertEquals(3, game.repetitionCount());
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(8, game.moveHistory().size());
+    }
+
+    @Test
+    void pawnMoveStartsRepetitionsOver() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        play(game, 2, 1, 3, 1);
+        play(game, 7, 1, 6, 1);
+        shuffleKnights(game);
+        assertEquals(2, game.repetitionCount());
+        shuffleKnights(game);
+        assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    void sameSquaresWithOtherSideToMoveDoNotCount() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w");
+        play(game, 1, 1, 2, 1);
+        play(game, 8, 5, 8, 4);
+        play(game, 2, 1, 1, 1);
+        play(game, 8, 4, 8, 5);
+        assertEquals(2, game.repetitionCount());
+        play(game, 1, 1, 2, 1);
+        assertEquals(2, game.repetitionCount());
+    }
+
+    @Test
+    void unmakeMoveRestoresHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        play(game, 2, 5, 4, 5);
+        MoveList before = game.moveHistory();
+
+        MoveList replies = new MoveList();
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), replies);
+        for (int i = 0; i < replies.size(); i++) {
+            game.makeMove(replies.get(i));
+            assertEquals(before.size() + 1, game.moveHistory().size());
+            game.unmakeMove();
+            assertArrayEquals(before.toArray(), game.moveHistory().toArray());
+        }
+        play(game, 7, 5, 5, 5);
+        shuffleKnights(game);
+        assertEquals(2, game.repetitionCount());
+    }
+
+    @Test
+    void unmakeMoveTakesBackLongGames() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, 2, 5, 4, 5);
+        play(game, 7, 5, 5, 5);
+        MoveList before = game.moveHistory();
+        for (int i = 0; i < 150; i++) {
+            shuffleKnights(game);
+        }
+        assertEquals(before.size() + 600, game.moveHistory().size());
+        for (int i = 0; i < 600; i++) {
+            game.unmakeMove();
+        }
+        assertArrayEquals(before.toArray(), game.moveHistory().toArray());
+        game.unmakeMove();
+        game.unmakeMove();
+        assertEquals(new ChessGame(), game);
+        assertThrows(IllegalStateException.class, game::unmakeMove);
+    }
+
+    @Test
+    void editingTheBoardDropsTheUndoHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, 2, 5, 4, 5);
+        ChessPosition e4 = new ChessPosition(4, 5);
+        game.getBoard().removePiece(e4);
+        game.getBoard().addPiece(e4, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        assertThrows(IllegalStateException.class, game::unmakeMove);
+        assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN), game.getBoard().getPiece(e4));
+        assertNull(game.getBoard().getPiece(new ChessPosition(2, 5)));
+        assertEquals(0, game.moveHistory().size());
+    }
+
+    @Test
+    void settingTheBoardStartsHistoryOver() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        game.setFen(Fen.START);
+        assertEquals(4, game.moveHistory().size());
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertEquals(0, game.moveHistory().size());
+        assertEquals(1, game.repetitionCount());
+        play(game, 8, 2, 6, 3);
+        assertEquals(1, game.moveHistory().size());
+    }
+
+    @Test
+    void historySurvivesGson() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame game = new ChessGame();
+        int[][] moves = {{1, 7, 3, 6}, {8, 7, 6, 6}, {3, 6, 1, 7}, {6, 6, 8, 7}};
+        for (int i = 0; i < 8; i++) {
+            game = gson.fromJson(gson.toJson(game), ChessGame.class);
+            int[] move = moves[i % 4];
+            play(game, move[0], move[1], move[2], move[3]);
+        }
+        assertEquals(3, game.repetitionCount());
+        assertEquals(8, game.moveHistory().size());
+    }
+
+    @Test
+    void gsonWritesOnlyTheHistoryInUse() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        JsonObject json = gson.toJsonTree(game).getAsJsonObject();
+        assertEquals(4, json.getAsJsonArray("moveHistory").size());
+        assertEquals(5, json.getAsJsonArray("keyHistory").size());
+        assertEquals(0, gson.toJsonTree(new ChessGame()).getAsJsonObject().getAsJsonArray("moveHistory").size());
+
+        json.addProperty("historySize", 40);
+        ChessGame broken = gson.fromJson(json, ChessGame.class);
+        assertEquals(game, broken);
+        assertEquals(0, broken.moveHistory().size());
+        play(broken, 1, 7, 3, 6);
+        assertEquals(1, broken.moveHistory().size());
+    }
+
+    @Test
+    void longGamesGrowTheHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < 30; i++) {
+            shuffleKnights(game);
+        }
+        assertEquals(120, game.moveHistory().size());
+        assertEquals(31, game.repetitionCount());
+    }
+
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        play(game, 1, 7, 3, 6);
+        play(game, 8, 7, 6, 6);
+        play(game, 3, 6, 1, 7);
+        play(game, 6, 6, 8, 7);
+    }
+
+    private static void play(ChessGame game, int fromRow, int fromCol, int toRow, int toCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null));
+    }
+}
@@ -0,0 +1,171 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTests {
+
+    @Test
+    void findsMateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        assertEquals("a1a8", Move.toString(result.move()));
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 1, result.score());
+    }
+
+    @Test
+    void findsMateInTwo() {
+        ChessGame game = ChessGame.fromFen("kbK5/pp6/1P6/8/8/8/8/R7 w");
+        SearchResult result = new Search().search(game, SearchLimits.depth(6));
+        assertEquals("a1a6", Move.toString(result.move()));
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 3, result.score());
+    }
+
+    @Test
+    void takesHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/8/3RK3 w");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        assertEquals("d1d5", Move.toString(result.move()));
+    }
+
+    @Test
+    void avoidsLosingQueenToRecapture() {
+        ChessGame game = ChessGame.fromFen("4k3/8/2p5/3p4/8/8/8/3QK3 w");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        assertNotEquals("d1d5", Move.toString(result.move()));
+    }
+
+    @Test
+    void noMoveWhenGameIsOver() {
+        ChessGame stalemate = ChessGame.fromFen("k7/2Q5/1K6/8/8/8/8/8 b");
+        SearchResult result = new Search().search(stalemate, SearchLimits.depth(3));
+        assertEquals(Move.NONE, result.move());
+        assertNull(result.bestMove());
+        assertEquals(0, result.score());
+    }
+
+    @Test
+    void leavesGameUnchanged() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        String fen = game.toFen();
+        long key = game.positionKey();
+        int[] history = game.moveHistory().toArray();
+
+        new Search().search(game, SearchLimits.depth(5));
+        assertEquals(fen, game.toFen());
+        assertEquals(key, game.positionKey());
+        assertArrayEquals(history, game.moveHistory().toArray());
+        assertEquals(20, game.status().legalMoveCount());
+    }
+
+    @Test
+    void stopsAtNodeLimit() {
+        ChessGame game = ChessGame.fromFen(Perft.REFERENCE_POSITIONS.get(4).fen());
+        SearchResult result = new Search().search(game, SearchLimits.nodes(5000));
+        assertTrue(result.nodes() <= 5000);
+        assertTrue(isLegal(game, result.move()));
+
+        SearchResult tiny = new Search().search(game, SearchLimits.nodes(1));
+        assertTrue(isLegal(game, tiny.move()));
+    }
+
+    @Test
+    void stopsAtTimeLimit() {
+        ChessGame game = ChessGame.fromFen(Perft.REFERENCE_POSITIONS.get(4).fen());
+        long start = System.nanoTime();
+        SearchResult result = new Search().search(game, SearchLimits.time(200));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis < 1000, "took " + millis + " ms");
+        assertTrue(result.depth() >= 1);
+        assertTrue(isLegal(game, result.move()));
+    }
+
+    @Test
+    void drawsByRepetitionRatherThanLosing() throws InvalidMoveException {
+        // White is a queen down, but Kb1 repeats a position from earlier in the game
+        ChessGame game = ChessGame.fromFen("7k/8/8/8/3q4/8/8/K7 w");
+        play(game, "a1b1");
+        play(game, "d4d5");
+        play(game, "b1a1");
+        play(game, "d5d4");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        assertEquals("a1b1", Move.toString(result.move()));
+        assertEquals(0, result.score());
+
+        SearchResult fresh = new Search().search(ChessGame.fromFen(game.toFen()), SearchLimits.depth(4));
+        assertTrue(fresh.score() < -500);
+    }
+
+    @Test
+    void searchersShareOneTable() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            threads.add(new Thread(() -> {
+                ChessGame game = ChessGame.fromFen(reference.fen());
+                SearchResult result = new Search(table).search(game, SearchLimits.depth(5));
+                if (!isLegal(game, result.move())) {
+                    synchronized (failures) {
+                        failures.add(new AssertionError("Illegal move for " + reference.fen()));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+
+    @Test
+    void searchLoopDoesNotAllocate() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        ChessGame game = ChessGame.fromFen(Perft.REFERENCE_POSITIONS.get(4).fen());
+        Search search = new Search(new TranspositionTable(1));
+        search.search(game, SearchLimits.nodes(50_000));
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        SearchResult result = search.search(game, SearchLimits.nodes(200_000));
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertEquals(200_000, result.nodes());
+        assertTrue(allocated < 16 * 1024, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void rejectsEmptyLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchLimits(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> SearchLimits.depth(-1));
+    }
+
+    private static void play(ChessGame game, String move) throws InvalidMoveException {
+        game.makeMove(new ChessMove(
+                new ChessPosition(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                new ChessPosition(move.charAt(3) - '0', move.charAt(2) - 'a' + 1), null));
+    }
+
+    private static boolean isLegal(ChessGame game, int move) {
+        MoveList moves = new MoveList();
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,176 @@
+package chess;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTests {
+    private static Path directory;
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        directory = Files.createTempDirectory("tablebases");
+        TablebaseGenerator generator = new TablebaseGenerator(directory);
+        for (String material : new String[]{"KQvK", "KRvK", "KPvK"}) {
+            generator.generate(material);
+        }
+        tablebases = Tablebases.open(directory);
+    }
+
+    @Test
+    void generatesDependenciesToo() {
+        assertEquals(Set.of("KQvK", "KRvK", "KBvK", "KNvK", "KPvK"), tablebases.names());
+    }
+
+    @Test
+    void longestMatesMatchKnownValues() throws IOException {
+        // Longest mates: KQK 10 moves, KRK 16 moves, KPK 28 moves
+        assertEquals(20, longestLoss("KQvK"));
+        assertEquals(32, longestLoss("KRvK"));
+        assertEquals(56, longestLoss("KPvK"));
+        assertEquals(0, longestLoss("KBvK"));
+    }
+
+    @Test
+    void probesKnownPositions() {
+        assertEquals(new TablebaseResult(TablebaseResult.Outcome.WIN, 1), probe("4k3/8/4K3/8/8/8/8/7Q w"));
+        assertEquals(new TablebaseResult(TablebaseResult.Outcome.LOSS, 0), probe("4k2Q/8/4K3/8/8/8/8/8 b"));
+        assertEquals(TablebaseResult.DRAW, probe("7k/8/6QK/8/8/8/8/8 b"));
+        assertEquals(TablebaseResult.DRAW, probe("8/4k3/8/8/8/8/4P3/4K3 w"));
+        assertEquals(TablebaseResult.Outcome.WIN, probe("8/8/8/8/8/8/4P3/4K2k w").outcome());
+        assertEquals(TablebaseResult.DRAW, probe("4k3/8/8/8/8/8/8/4K3 w"));
+        assertNull(tablebases.probe(new ChessGame()));
+        assertNull(tablebases.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/3QKQ2 w")));
+    }
+
+    @Test
+    void probesEitherColorAndMirroredBoards() {
+        TablebaseResult white = probe("1k6/8/1K6/8/8/8/8/R7 w");
+        assertEquals(new TablebaseResult(TablebaseResult.Outcome.WIN, 3), white);
+        assertEquals(white, probe("6k1/8/6K1/8/8/8/8/7R w"));
+        assertEquals(white, probe("r7/8/8/8/8/1k6/8/1K6 b"));
+        assertEquals(white, probe("7r/8/8/8/8/6k1/8/6K1 b"));
+    }
+
+    @Test
+    void agreesWithSearch() {
+        ChessGame game = ChessGame.fromFen("1k6/8/1K6/8/8/8/8/R7 w");
+        SearchResult result = new Search(new TranspositionTable(1)).search(game, SearchLimits.depth(5));
+        assertEquals(Search.MATE - probe("1k6/8/1K6/8/8/8/8/R7 w").pliesToMate(), result.score());
+    }
+
+    @Test
+    void everyResultFollowsFromItsMoves() {
+        Random random = new Random(22);
+        String[] materials = {"KQ", "KR", "KP"};
+        int checked = 0;
+        while (checked < 3000) {
+            ChessGame game = randomPosition(random, materials[checked % materials.length]);
+            TablebaseResult result = tablebases.probe(game);
+            if (result == null) {
+                continue;
+            }
+            assertEquals(expectedFromMoves(game), result, game.toFen());
+            checked++;
+        }
+    }
+
+    @Test
+    void existingTablesAreReused() throws IOException {
+        Path file = directory.resolve("KQvK" + Tablebases.SUFFIX);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        Tablebase table = new TablebaseGenerator(directory).generate("KvKQ");
+        assertEquals("KQvK", table.name());
+        assertEquals(modified, Files.getLastModifiedTime(file).toMillis());
+    }
+
+    @Test
+    void rejectsBadMaterialAndFiles() throws IOException {
+        assertEquals("KQvK", Tablebase.name(Tablebase.parse("KvKQ")));
+        assertEquals("KRvKP", Tablebase.name(Tablebase.parse("KPvKR")));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.parse("KQK"));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.parse("QvK"));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.parse("KQRvKP"));
+        assertThrows(IllegalArgumentException.class, () -> Tablebase.parse("KvK"));
+        Path file = Files.createTempFile("bad", Tablebases.SUFFIX);
+        try {
+            Files.write(file, new byte[100]);
+            assertThrows(IOException.class, () -> Tablebase.open(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static TablebaseResult probe(String fen) {
+        return tablebases.probe(ChessGame.fromFen(fen));
+    }
+
+    private static int longestLoss(String material) throws IOException {
+        Tablebase table = Tablebase.open(directory.resolve(material + Tablebases.SUFFIX));
+        int longest = 0;
+        for (int i = 0; i < Tablebase.size(table.codes.length); i++) {
+            int value = table.value(i);
+            if (value != Tablebase.INVALID && value != Tablebase.DRAW && ((value - 1) & 1) == 0) {
+                longest = Math.max(longest, value - 1);
+            }
+        }
+        return longest;
+    }
+
+    private static ChessGame randomPosition(Random random, String white) {
+        ChessGame game = ChessGame.fromFen("8/8/8/8/8/8/8/8 w");
+        ChessBoard board = game.getBoard();
+        String pieces = white + "k";
+        for (int i = 0; i < pieces.length(); i++) {
+            ChessPosition position = new ChessPosition(random.nextInt(8) + 1, random.nextInt(8) + 1);
+            if (board.getPiece(position) != null) {
+                return randomPosition(random, white);
+            }
+            ChessPiece.PieceType type = switch (Character.toUpperCase(pieces.charAt(i))) {
+                case 'K' -> ChessPiece.PieceType.KING;
+                case 'Q' -> ChessPiece.PieceType.QUEEN;
+                case 'R' -> ChessPiece.PieceType.ROOK;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            board.addPiece(position, new ChessPiece(
+                    i == pieces.length() - 1 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE, type));
+        }
+        game.setTeamTurn(random.nextBoolean() ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+        return game;
+    }
+
+    // The result a position must have given the tables' results after each legal move
+    private static TablebaseResult expectedFromMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), moves);
+        if (moves.isEmpty()) {
+            return game.isInCheck(game.getTeamTurn())
+                    ? new TablebaseResult(TablebaseResult.Outcome.LOSS, 0) : TablebaseResult.DRAW;
+        }
+        int fastestWin = Integer.MAX_VALUE;
+        int slowestLoss = 0;
+        boolean draw = false;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            TablebaseResult after = tablebases.probe(game);
+            game.unmakeMove();
+            switch (after.outcome()) {
+                case LOSS -> fastestWin = Math.min(fastestWin, after.pliesToMate() + 1);
+                case DRAW -> draw = true;
+                case WIN -> slowestLoss = Math.max(slowestLoss, after.pliesToMate() + 1);
+            }
+        }
+        if (fastestWin != Integer.MAX_VALUE) {
+            return new TablebaseResult(TablebaseResult.Outcome.WIN, fastestWin);
+        }
+        return draw ? TablebaseResult.DRAW : new TablebaseResult(TablebaseResult.Outcome.LOSS, slowestLoss);
+    }
+}